@@ -2,7 +2,12 @@ import java.util.*;
 import javax.swing.SwingUtilities;
 public class App {
     public static void main(String[] args) throws Exception {
-             System.out.println("GAME MENU:\n1 - Minesweeper\n2 - Sudoku\n3 - Klondike Solitaire\n0 - Exit\nChoose your preferred game : ");
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : SolverServer.DEFAULT_PORT;
+            new SolverServer(Runtime.getRuntime().availableProcessors()).serve(port);
+            return;
+        }
+             System.out.println("GAME MENU:\n1 - Minesweeper\n2 - Sudoku\n3 - Klondike Solitaire\n4 - Minesweeper (Infinite)\n5 - Minesweeper (Torus)\n6 - Minesweeper (Hex)\n0 - Exit\nChoose your preferred game : ");
         Scanner sr=new Scanner(System.in);
         int n=sr.nextInt();
             switch (n) {
@@ -15,6 +20,9 @@ public class App {
                         ks game = new ks();
                         game.setVisible(true);
                     });
+                case 4 -> Minesweeper.infinite();
+                case 5 -> new Minesweeper(MineTopology.torus(9, 9));
+                case 6 -> new Minesweeper(MineTopology.hex(9, 9));
                 default -> System.out.println("Invalid Choice! Choose again : ");
             }
         }
@@ -0,0 +1,135 @@
+import java.util.Arrays;
+
+// Best-first search with dives. Nodes are stored as (parent, move, g) in primitive arrays
+// and a node's position is rebuilt by taking the current line back and making the node's
+// line, so the open list costs a few bytes per state instead of a copy. After each pop
+// the search dives through the best new child in place, leaving its siblings on the open
+// list, so rebuilds stay rare. States are deduplicated by hash. Exhausting the open list
+// proves there is no goal; the line found is not necessarily the cheapest.
+class BestFirstSearch<S extends GameState> extends SearchDriver<S> {
+    static final int NONE = -1;
+
+    final MoveGenerator<S> generator;
+    final Heuristic<S> heuristic;
+
+    // Node storage, kept between searches
+    private int[] parent = new int[1 << 16];
+    private int[] moveOf = new int[1 << 16];
+    private int[] costOf = new int[1 << 16];
+    private int nodeCount;
+
+    // Moves and tokens from the start to the current position
+    private int[] lineMoves = new int[256];
+    private int[] lineTokens = new int[256];
+    private int lineLength;
+    private int[] buffer = new int[0];
+
+    BestFirstSearch(MoveGenerator<S> generator, Heuristic<S> heuristic) {
+        this.generator = generator;
+        this.heuristic = heuristic;
+    }
+
+    // Nodes stored by the last search; every one is a distinct state
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    // The start is left as it was
+    @Override
+    public SearchResult solve(S start) {
+        begin();
+        if (buffer.length != maxMoves) buffer = new int[maxMoves];
+        nodeCount = 0;
+        lineLength = 0;
+        LongHeap open = new LongHeap();
+        LongHashSet visited = new LongHashSet(1 << 16);
+        try {
+            int root = addNode(NONE, NONE, 0);
+            if (start.isGoal()) return found(root);
+            visited.add(start.hash());
+            open.push(heuristic.priority(start, 0, NONE), root);
+
+            while (!open.isEmpty()) {
+                int node = open.pop();
+                restore(start, node);
+                while (node != NONE) {
+                    if (nodeCount >= maxNodes || visit(lineLength)) return result(SearchResult.Status.GAVE_UP, new int[0]);
+                    int best = NONE;
+                    long bestPriority = Long.MAX_VALUE;
+                    int n = generator.generate(start, buffer);
+                    for (int i = 0; i < n; i++) {
+                        int m = buffer[i];
+                        int token = start.make(m);
+                        if (visited.add(start.hash())) {
+                            int child = addNode(node, m, costOf[node] + start.cost(m, token));
+                            if (start.isGoal()) {
+                                start.unmake(m, token);
+                                return found(child);
+                            }
+                            long p = heuristic.priority(start, costOf[child], m);
+                            if (p < bestPriority) {
+                                if (best != NONE) open.push(bestPriority, best);
+                                best = child;
+                                bestPriority = p;
+                            } else {
+                                open.push(p, child);
+                            }
+                        }
+                        start.unmake(m, token);
+                    }
+                    node = best;
+                    if (best != NONE) push(moveOf[best], start.make(moveOf[best]));
+                }
+            }
+            return result(SearchResult.Status.EXHAUSTED, new int[0]);
+        } finally {
+            while (lineLength > 0) {
+                lineLength--;
+                start.unmake(lineMoves[lineLength], lineTokens[lineLength]);
+            }
+        }
+    }
+
+    private SearchResult found(int node) {
+        return result(SearchResult.Status.SOLVED, line(node));
+    }
+
+    private int addNode(int p, int m, int g) {
+        if (nodeCount == parent.length) {
+            parent = Arrays.copyOf(parent, nodeCount * 2);
+            moveOf = Arrays.copyOf(moveOf, nodeCount * 2);
+            costOf = Arrays.copyOf(costOf, nodeCount * 2);
+        }
+        parent[nodeCount] = p;
+        moveOf[nodeCount] = m;
+        costOf[nodeCount] = g;
+        return nodeCount++;
+    }
+
+    private void push(int move, int token) {
+        if (lineLength == lineMoves.length) {
+            lineMoves = Arrays.copyOf(lineMoves, lineLength * 2);
+            lineTokens = Arrays.copyOf(lineTokens, lineLength * 2);
+        }
+        lineMoves[lineLength] = move;
+        lineTokens[lineLength++] = token;
+    }
+
+    // Moves from the start to node
+    private int[] line(int node) {
+        int len = 0;
+        for (int n = node; parent[n] != NONE; n = parent[n]) len++;
+        int[] out = new int[len];
+        for (int n = node; parent[n] != NONE; n = parent[n]) out[--len] = moveOf[n];
+        return out;
+    }
+
+    // Take the current line back and make node's line instead
+    private void restore(S state, int node) {
+        while (lineLength > 0) {
+            lineLength--;
+            state.unmake(lineMoves[lineLength], lineTokens[lineLength]);
+        }
+        for (int move : line(node)) push(move, state.make(move));
+    }
+}
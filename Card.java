@@ -0,0 +1,56 @@
+import java.io.Serializable;
+
+// Card class. The 52 cards are immutable flyweights shared by every model and view, so
+// cards compare by identity; whether a card is face up belongs to the model holding it.
+final class Card implements Serializable{
+    enum Suit {HEARTS, DIAMONDS, CLUBS, SPADES}
+    private static final Card[] DECK = new Card[52];
+    static {
+        for (int id = 0; id < 52; id++) DECK[id] = new Card(id);
+    }
+
+    final byte id;   // compact id used by KlondikeModel: suit * 13 + rank - 1
+    final int rank;  // 1=Ace, 11=Jack, 12=Queen, 13=King
+    final Suit suit;
+
+    private Card(int id) {
+        this.id = (byte) id;
+        rank = id % 13 + 1;
+        suit = Suit.values()[id / 13];
+    }
+
+    static Card of(int id) {
+        return DECK[id];
+    }
+
+    static Card of(int rank, Suit suit) {
+        return DECK[suit.ordinal() * 13 + rank - 1];
+    }
+
+    int id() {
+        return id;
+    }
+
+    // Deserialized cards are swapped for the shared instance
+    private Object readResolve() {
+        return of(id);
+    }
+
+    boolean isRed() {
+        return suit == Suit.HEARTS || suit == Suit.DIAMONDS;
+    }
+
+    @Override
+    public String toString() {
+        String r = switch(rank) {
+            case 1 -> "A"; case 11 -> "J"; case 12 -> "Q"; case 13 -> "K";
+            default -> String.valueOf(rank);
+        };
+        return r + switch(suit) {
+            case HEARTS -> "♥";
+            case DIAMONDS -> "♦";
+            case CLUBS -> "♣";
+            case SPADES -> "♠";
+        };
+    }
+}
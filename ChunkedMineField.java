@@ -0,0 +1,194 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Unbounded minefield split into CHUNK x CHUNK chunks. Mines of a chunk are derived from
+// a hash of the seed and the chunk coordinates, so a chunk can be dropped from the cache
+// and regenerated later with identical mines.
+class ChunkedMineField {
+    static final int CHUNK_BITS = 4;
+    static final int CHUNK = 1 << CHUNK_BITS;
+    static final int MASK = CHUNK - 1;
+    static final int WORDS = CHUNK * CHUNK / 64;
+    static final int MAX_FLOOD = 10_000;     // cells one flood step reveals; the rest stay queued
+    static final int MAX_PLAYED = 1 << 16;   // evicted chunks whose play state is kept
+
+    // One chunk: bitsets of CHUNK * CHUNK cells
+    static final class Chunk {
+        final long[] mines = new long[WORDS];
+        final long[] revealed = new long[WORDS];
+        final long[] flagged = new long[WORDS];
+        boolean touched;
+    }
+
+    final long seed;
+    final double density;
+    final int maxChunks;
+    int revealedCount = 0;
+
+    // Play state of evicted chunks the player has touched: the revealed bits, followed by
+    // the flagged bits only if any are set. Untouched chunks are simply regenerated, so
+    // scrolling alone never grows this map. It is capped at MAX_PLAYED chunks; past that
+    // the chunk played longest ago is forgotten and comes back unrevealed (its mines are
+    // the same, and revealedCount keeps counting what was revealed there).
+    private final LinkedHashMap<Long, long[]> played;
+    private final LinkedHashMap<Long, Chunk> cache;
+
+    // Cells still to be revealed by a flood that hit MAX_FLOOD
+    private long[] queue = new long[64];
+    private int head, tail;
+
+    ChunkedMineField(long seed, double density, int maxChunks) {
+        this.seed = seed;
+        this.density = density;
+        this.maxChunks = maxChunks;
+        this.played = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+                return size() > MAX_PLAYED;
+            }
+        };
+        this.cache = new LinkedHashMap<>(maxChunks * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                if (size() <= ChunkedMineField.this.maxChunks) return false;
+                Chunk old = eldest.getValue();
+                if (old.touched) played.put(eldest.getKey(), compact(old));
+                return true;
+            }
+        };
+    }
+
+    static long[] compact(Chunk ch) {
+        boolean flags = false;
+        for (long w : ch.flagged) flags |= w != 0;
+        long[] state = Arrays.copyOf(ch.revealed, flags ? 2 * WORDS : WORDS);
+        if (flags) System.arraycopy(ch.flagged, 0, state, WORDS, WORDS);
+        return state;
+    }
+
+    static long key(int cr, int cc) {
+        return ((long) cr << 32) | (cc & 0xffffffffL);
+    }
+
+    int cachedChunks() {
+        return cache.size();
+    }
+
+    Chunk chunk(int r, int c) {
+        int cr = r >> CHUNK_BITS, cc = c >> CHUNK_BITS;
+        long k = key(cr, cc);
+        Chunk ch = cache.get(k);
+        if (ch == null) {
+            ch = generate(cr, cc);
+            long[] state = played.remove(k);
+            if (state != null) {
+                System.arraycopy(state, 0, ch.revealed, 0, WORDS);
+                if (state.length > WORDS) System.arraycopy(state, WORDS, ch.flagged, 0, WORDS);
+                ch.touched = true;
+            }
+            cache.put(k, ch);
+        }
+        return ch;
+    }
+
+    Chunk generate(int cr, int cc) {
+        Chunk ch = new Chunk();
+        long h = LongHashSet.mix(seed ^ LongHashSet.mix(key(cr, cc)));
+        long threshold = (long) (density * (1L << 53));
+        for (int i = 0; i < CHUNK * CHUNK; i++) {
+            h = LongHashSet.mix(h + 0x9e3779b97f4a7c15L);
+            if ((h >>> 11) < threshold) ch.mines[i >> 6] |= 1L << i;
+        }
+        return ch;
+    }
+
+    static int bit(int r, int c) {
+        return ((r & MASK) << CHUNK_BITS) | (c & MASK);
+    }
+
+    static boolean test(long[] bits, int i) {
+        return (bits[i >> 6] & (1L << i)) != 0;
+    }
+
+    boolean isMine(int r, int c) {
+        return test(chunk(r, c).mines, bit(r, c));
+    }
+
+    boolean isRevealed(int r, int c) {
+        return test(chunk(r, c).revealed, bit(r, c));
+    }
+
+    boolean isFlagged(int r, int c) {
+        return test(chunk(r, c).flagged, bit(r, c));
+    }
+
+    int adjacentMines(int r, int c) {
+        int n = 0;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if ((dr != 0 || dc != 0) && isMine(r + dr, c + dc)) n++;
+            }
+        }
+        return n;
+    }
+
+    void toggleFlag(int r, int c) {
+        Chunk ch = chunk(r, c);
+        int i = bit(r, c);
+        if (test(ch.revealed, i)) return;
+        ch.flagged[i >> 6] ^= 1L << i;
+        ch.touched = true;
+    }
+
+    // Reveal a cell; zero cells flood outwards across chunk boundaries, MAX_FLOOD cells at
+    // a time. What is left of a larger region stays queued and the next reveal carries on
+    // with it (a sparse enough field has zero regions that never end). Returns false if
+    // the cell was a mine.
+    boolean reveal(int r, int c) {
+        if (!isRevealed(r, c) && !isFlagged(r, c)) {
+            if (isMine(r, c)) return false;
+            push(key(r, c));
+        }
+        flood();
+        return true;
+    }
+
+    // Reveals up to MAX_FLOOD queued cells
+    private void flood() {
+        for (int opened = 0; head < tail && opened < MAX_FLOOD; ) {
+            long k = queue[head++];
+            int cr = (int) (k >> 32), cc = (int) k;
+            // Count first: it may load other chunks, which must not evict this one under us
+            int n = adjacentMines(cr, cc);
+            Chunk ch = chunk(cr, cc);
+            int i = bit(cr, cc);
+            if (test(ch.revealed, i) || test(ch.flagged, i)) continue;
+            ch.revealed[i >> 6] |= 1L << i;
+            ch.touched = true;
+            revealedCount++;
+            opened++;
+            if (n != 0) continue;
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr == 0 && dc == 0) continue;
+                    if (isRevealed(cr + dr, cc + dc)) continue;
+                    push(key(cr + dr, cc + dc));
+                }
+            }
+        }
+        if (head == tail) head = tail = 0;
+    }
+
+    private void push(long k) {
+        if (tail == queue.length) {
+            if (head > 0) {
+                System.arraycopy(queue, head, queue, 0, tail - head);
+                tail -= head;
+                head = 0;
+            }
+            if (tail == queue.length) queue = Arrays.copyOf(queue, queue.length * 2);
+        }
+        queue[tail++] = k;
+    }
+}
@@ -0,0 +1,97 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Depth-first search to a depth limit. Each depth has its own move buffer, so a search
+// allocates nothing per node. With a transposition table, positions proven dead within
+// the remaining depth are remembered and not searched again. solve() stops at the first
+// goal and leaves the state there; enumerate() visits every goal. Games whose moves can
+// cycle need a depthLimit.
+class DepthFirstSearch<S extends GameState> extends SearchDriver<S> {
+    final MoveGenerator<S> generator;
+    int depthLimit = Integer.MAX_VALUE;
+    TranspositionTable table; // optional
+
+    private int[][] buffers = new int[0][];
+    private int[] path = new int[64];
+    private int pathLength;
+    private Consumer<S> onGoal;
+    private long goals;
+
+    DepthFirstSearch(MoveGenerator<S> generator) {
+        this.generator = generator;
+    }
+
+    @Override
+    public SearchResult solve(S start) {
+        begin();
+        onGoal = null;
+        if (search(start, 0)) return result(SearchResult.Status.SOLVED, Arrays.copyOf(path, pathLength));
+        return result(stopped ? SearchResult.Status.GAVE_UP : SearchResult.Status.EXHAUSTED, new int[0]);
+    }
+
+    // Calls visitor at every goal reachable from start and returns how many there were;
+    // start is left as it was
+    long enumerate(S start, Consumer<S> visitor) {
+        begin();
+        onGoal = visitor;
+        goals = 0;
+        search(start, 0);
+        onGoal = null;
+        return goals;
+    }
+
+    // Moves of the line found by the last solve()
+    int[] line() {
+        return Arrays.copyOf(path, pathLength);
+    }
+
+    private boolean search(S state, int depth) {
+        if (visit(depth)) return false;
+        if (state.isGoal()) {
+            if (onGoal == null) {
+                pathLength = depth;
+                return true;
+            }
+            goals++;
+            onGoal.accept(state);
+            return false;
+        }
+        if (depth >= depthLimit) return false;
+
+        // Enumeration visits every goal, so it never prunes through the table
+        boolean useTable = table != null && onGoal == null;
+        int remaining = Math.min(depthLimit - depth, 255);
+        long hash = 0;
+        if (useTable) {
+            hash = state.hash();
+            long entry = table.probe(hash);
+            if (entry != 0 && TranspositionTable.depth(entry) >= remaining) {
+                tableHits++;
+                return false;
+            }
+        }
+
+        int[] moves = buffer(depth);
+        int n = generator.generate(state, moves);
+        if (depth == path.length) path = Arrays.copyOf(path, depth * 2);
+        for (int i = 0; i < n; i++) {
+            int move = moves[i];
+            int token = state.make(move);
+            path[depth] = move;
+            if (search(state, depth + 1)) return true;
+            state.unmake(move, token);
+            if (stopped) return false;
+        }
+        if (useTable) table.store(hash, 0, remaining, TranspositionTable.UPPER, 0);
+        return false;
+    }
+
+    private int[] buffer(int depth) {
+        if (depth >= buffers.length) {
+            int old = buffers.length;
+            buffers = Arrays.copyOf(buffers, Math.max(16, depth * 2));
+            for (int i = old; i < buffers.length; i++) buffers[i] = new int[maxMoves];
+        }
+        return buffers[depth];
+    }
+}
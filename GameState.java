@@ -0,0 +1,20 @@
+// Search engine shared by the games. A game exposes its position as a GameState that is
+// changed in place by int-encoded moves and hashed to a long; a MoveGenerator fills an
+// int[] with the moves to try and a Heuristic scores positions. The drivers
+// (DepthFirstSearch, IdaStarSearch, BestFirstSearch, ParallelSearch) work on any game
+// through these interfaces, so a driver improvement reaches every game that uses it.
+//
+// A position that moves are made on and taken back from in place.
+interface GameState {
+    long hash();
+    boolean isGoal();
+
+    // Returns what unmake() needs to take the move back
+    int make(int move);
+    void unmake(int move, int token);
+
+    // Cost of a move just made, for drivers that count path cost
+    default int cost(int move, int token) {
+        return 1;
+    }
+}
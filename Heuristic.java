@@ -0,0 +1,10 @@
+interface Heuristic<S extends GameState> {
+    // Estimate of the cost still needed to reach a goal; 0 at a goal. IdaStarSearch finds
+    // a cheapest solution only if it never overestimates.
+    int estimate(S state);
+
+    // Best-first ordering key of a state reached by move at path cost g; lower first
+    default long priority(S state, int g, int move) {
+        return g + estimate(state);
+    }
+}
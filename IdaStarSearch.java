@@ -0,0 +1,138 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Iterative-deepening A*: depth-first searches bounded by f = g + h, each iteration
+// raising the bound to the smallest f that exceeded the last one. Memory is the current
+// path; a position repeating one of its own ancestors is skipped, which is all the cycle
+// control it needs. With an admissible heuristic the first solution found is a cheapest
+// one. An optional transposition table skips positions already searched with at least
+// the budget left and keeps the smallest f they cut off, so the next bound stays right.
+// The search is also anytime: it tracks the line to the position with the lowest
+// estimate seen (shortest first on ties), for callers that stop it before a goal. The
+// start is left as it was.
+class IdaStarSearch<S extends GameState> extends SearchDriver<S> {
+    static final int INFINITY = Integer.MAX_VALUE;
+
+    final MoveGenerator<S> generator;
+    final Heuristic<S> heuristic;
+    TranspositionTable table;    // optional
+    Consumer<int[]> onIteration; // optional; gets bestLine() after each completed iteration
+    int iterations;
+
+    private int[][] buffers = new int[0][];
+    private int[] path = new int[64];
+    private long[] pathHashes = new long[64];
+    private int pathLength;
+    private int nextBound;
+    private int[] best = new int[64];
+    private int bestLength, bestEstimate;
+
+    IdaStarSearch(MoveGenerator<S> generator, Heuristic<S> heuristic) {
+        this.generator = generator;
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public SearchResult solve(S start) {
+        begin();
+        iterations = 0;
+        bestLength = 0;
+        bestEstimate = INFINITY;
+        int bound = heuristic.estimate(start);
+        while (true) {
+            iterations++;
+            nextBound = INFINITY;
+            pathHashes[0] = start.hash();
+            if (search(start, 0, 0, bound) <= bound) return result(SearchResult.Status.SOLVED, Arrays.copyOf(path, pathLength));
+            if (stopped) return result(SearchResult.Status.GAVE_UP, new int[0]);
+            if (onIteration != null) onIteration.accept(bestLine());
+            if (nextBound == INFINITY) return result(SearchResult.Status.EXHAUSTED, new int[0]);
+            bound = nextBound;
+        }
+    }
+
+    // Line to the position with the lowest estimate the last search reached
+    int[] bestLine() {
+        return Arrays.copyOf(best, bestLength);
+    }
+
+    // Searches below state; returns a value <= bound if it reached a goal, and otherwise
+    // the smallest f it cut off (INFINITY if none), which also feeds nextBound
+    private int search(S state, int depth, int g, int bound) {
+        if (visit(depth)) return INFINITY;
+        int h = heuristic.estimate(state);
+        int f = g + h;
+        if (f > bound) {
+            nextBound = Math.min(nextBound, f);
+            return f;
+        }
+        if (h < bestEstimate || (h == bestEstimate && depth < bestLength)) {
+            bestEstimate = h;
+            if (depth > best.length) best = Arrays.copyOf(best, depth * 2);
+            System.arraycopy(path, 0, best, 0, depth);
+            bestLength = depth;
+        }
+        if (state.isGoal()) {
+            pathLength = depth;
+            return f;
+        }
+
+        // Remaining budgets over 255 do not fit an entry and are searched without the table
+        int remaining = bound - g;
+        boolean useTable = table != null && remaining <= 255;
+        long hash = pathHashes[depth];
+        if (useTable) {
+            long entry = table.probe(hash);
+            if (entry != 0 && TranspositionTable.depth(entry) >= remaining) {
+                tableHits++;
+                int cut = TranspositionTable.value(entry);
+                if (cut != INFINITY) nextBound = Math.min(nextBound, g + cut);
+                return cut == INFINITY ? INFINITY : g + cut;
+            }
+        }
+
+        int[] moves = buffer(depth);
+        int n = generator.generate(state, moves);
+        if (depth + 1 >= path.length) {
+            path = Arrays.copyOf(path, path.length * 2);
+            pathHashes = Arrays.copyOf(pathHashes, pathHashes.length * 2);
+        }
+        int smallest = INFINITY;
+        for (int i = 0; i < n; i++) {
+            int move = moves[i];
+            int token = state.make(move);
+            long child = state.hash();
+            if (!onPath(child, depth)) {
+                path[depth] = move;
+                pathHashes[depth + 1] = child;
+                int r = search(state, depth + 1, g + state.cost(move, token), bound);
+                if (r <= bound) {
+                    state.unmake(move, token);
+                    return r;
+                }
+                smallest = Math.min(smallest, r);
+            }
+            state.unmake(move, token);
+            if (stopped) return INFINITY;
+        }
+        // Cut-off f stored relative to this position, so it holds whatever g leads here
+        if (useTable) table.store(hash, 0, remaining, TranspositionTable.UPPER, smallest == INFINITY ? INFINITY : smallest - g);
+        return smallest;
+    }
+
+    private boolean onPath(long hash, int depth) {
+        for (int i = 0; i <= depth; i++) {
+            if (pathHashes[i] == hash) return true;
+        }
+        return false;
+    }
+
+    private int[] buffer(int depth) {
+        if (depth >= buffers.length) {
+            int old = buffers.length;
+            buffers = Arrays.copyOf(buffers, Math.max(16, depth * 2));
+            for (int i = old; i < buffers.length; i++) buffers[i] = new int[maxMoves];
+        }
+        return buffers[depth];
+    }
+}
@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Headless batch analysis of numbered Klondike deals. Solves a range of deals on all
+// cores, one deal per solver at a time, and writes each result into a KlondikeResults
+// file as soon as it is known. Deals already in the file are skipped, so an interrupted
+// run resumes where it stopped and ranges can be split across machines.
+//
+//   java KlondikeBatch results.bin 0 1000000 [threads] [maxNodes] [maxMillis]
+//   java KlondikeBatch results.bin query 42 43 44
+//   java KlondikeBatch results.bin stats
+class KlondikeBatch {
+    static final int PROGRESS_EVERY = 1000;
+
+    final KlondikeResults results;
+    int threads = Runtime.getRuntime().availableProcessors();
+    long maxNodes = 2_000_000;
+    long maxMillis = 10_000;
+
+    // Deals solved in this run, by status ordinal
+    final AtomicLongArray counts = new AtomicLongArray(KlondikeSolver.Status.values().length);
+
+    KlondikeBatch(KlondikeResults results) {
+        this.results = results;
+    }
+
+    void run(long from, long to) throws IOException {
+        KlondikeResults.checkDeal(from);
+        AtomicLong next = new AtomicLong(from);
+        AtomicLong done = new AtomicLong();
+        IOException[] failure = new IOException[1];
+        long t0 = System.currentTimeMillis();
+
+        Thread[] workers = new Thread[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(() -> {
+                KlondikeSolver solver = new KlondikeSolver(maxNodes, maxMillis);
+                try {
+                    for (long deal = next.getAndIncrement(); deal < to; deal = next.getAndIncrement()) {
+                        if (results.contains(deal)) continue;
+                        KlondikeSolver.Result r = solver.solve(new KlondikeModel(deal));
+                        results.put(deal, r);
+                        counts.incrementAndGet(r.status.ordinal());
+                        long n = done.incrementAndGet();
+                        if (n % PROGRESS_EVERY == 0) {
+                            System.out.println(n + " deals, " + (System.currentTimeMillis() - t0) / 1000 + "s, " + summary());
+                        }
+                    }
+                } catch (IOException e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                    next.set(to);
+                }
+            }, "klondike-batch-" + i);
+            workers[i].start();
+        }
+        for (Thread w : workers) {
+            try {
+                w.join();
+            } catch (InterruptedException e) {
+                next.set(to);
+                Thread.currentThread().interrupt();
+            }
+        }
+        results.force();
+        if (failure[0] != null) throw failure[0];
+    }
+
+    String summary() {
+        StringBuilder s = new StringBuilder();
+        for (KlondikeSolver.Status status : KlondikeSolver.Status.values()) {
+            if (s.length() > 0) s.append(' ');
+            s.append(status.name().toLowerCase()).append('=').append(counts.get(status.ordinal()));
+        }
+        return s.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: KlondikeBatch <file> <from> <to> [threads] [maxNodes] [maxMillis]");
+            System.out.println("       KlondikeBatch <file> query <deal>...");
+            System.out.println("       KlondikeBatch <file> stats");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        try (KlondikeResults results = new KlondikeResults(file)) {
+            if (args[1].equals("query")) {
+                for (int i = 2; i < args.length; i++) {
+                    long deal = Long.parseLong(args[i]);
+                    if (deal < 0) {
+                        System.out.println("deal " + args[i] + ": deal numbers start at 0");
+                        continue;
+                    }
+                    KlondikeResults.Entry e = results.get(deal);
+                    System.out.println("deal " + args[i] + ": " + (e == null ? "not solved" : e));
+                }
+            } else if (args[1].equals("stats")) {
+                KlondikeBatch batch = new KlondikeBatch(results);
+                for (long deal : results.deals()) batch.counts.incrementAndGet(results.get(deal).status.ordinal());
+                System.out.println(batch.summary());
+            } else if (Long.parseLong(args[1]) < 0) {
+                System.out.println("Deal numbers start at 0");
+            } else {
+                KlondikeBatch batch = new KlondikeBatch(results);
+                if (args.length > 3) batch.threads = Integer.parseInt(args[3]);
+                if (args.length > 4) batch.maxNodes = Long.parseLong(args[4]);
+                if (args.length > 5) batch.maxMillis = Long.parseLong(args[5]);
+                batch.run(Long.parseLong(args[1]), Long.parseLong(args[2]));
+                System.out.println("done: " + batch.summary());
+            }
+        }
+    }
+}
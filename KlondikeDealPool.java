@@ -0,0 +1,87 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Supply of deals proven winnable. Background solver threads draw random deal numbers,
+// solve them and queue the winnable ones in a bounded buffer; a full buffer blocks the
+// solvers until a deal is taken, so the pool only works ahead by CAPACITY deals. Every
+// result is recorded in a KlondikeResults file when one is given, so a deal number that
+// comes up again is answered from the file instead of being solved twice. Deal numbers
+// are drawn below DEAL_RANGE so they stay short enough to read out and retype.
+class KlondikeDealPool {
+    static final int CAPACITY = 8;
+    static final int DEAL_RANGE = 1_000_000;
+
+    final BlockingQueue<Long> ready = new ArrayBlockingQueue<>(CAPACITY);
+    final KlondikeResults proofs; // may be null
+    long maxNodes = 500_000;
+    long maxMillis = 5_000;
+    private volatile boolean stopped;
+
+    KlondikeDealPool(KlondikeResults proofs) {
+        this.proofs = proofs;
+    }
+
+    void start(int threads) {
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            Thread t = new Thread(this::work, "klondike-deals-" + i);
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            t.start();
+        }
+    }
+
+    void stop() {
+        stopped = true;
+    }
+
+    // A deal proven winnable, or null if none is ready yet
+    Long poll() {
+        return ready.poll();
+    }
+
+    private void work() {
+        KlondikeSolver solver = new KlondikeSolver(maxNodes, maxMillis);
+        try {
+            while (!stopped) {
+                long deal = ThreadLocalRandom.current().nextInt(DEAL_RANGE);
+                if (isWinnable(solver, deal)) ready.put(deal);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Looks the deal up in the proof file first; solves and records it otherwise
+    boolean isWinnable(KlondikeSolver solver, long deal) {
+        KlondikeResults.Entry known = null;
+        try {
+            if (proofs != null) known = proofs.get(deal);
+        } catch (IOException e) {
+            // Unreadable record: solve the deal again
+        }
+        if (known != null) return known.status == KlondikeSolver.Status.WON;
+
+        KlondikeSolver.Result r = solver.solve(new KlondikeModel(deal));
+        // A deal the solver gave up on may still be winnable; leave it to a later run
+        if (proofs != null && r.status != KlondikeSolver.Status.GAVE_UP) {
+            try {
+                proofs.put(deal, r);
+            } catch (IOException e) {
+                System.err.println("Could not record deal " + deal + ": " + e.getMessage());
+            }
+        }
+        return r.status == KlondikeSolver.Status.WON;
+    }
+
+    static KlondikeResults openProofs(Path file) {
+        try {
+            return new KlondikeResults(file);
+        } catch (IOException e) {
+            System.err.println("Solving without a proof cache: " + e.getMessage());
+            return null;
+        }
+    }
+}
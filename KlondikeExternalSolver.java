@@ -0,0 +1,323 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Exhaustive breadth-first Klondike search whose frontier and visited set live on disk,
+// for deals too big for KlondikeSolver's in-memory node store. States are canonical
+// KlondikeSnapshot positions (columns in columnOrder() order), so the heap only holds
+// one sort buffer of fixed size. Each layer is expanded into sorted runs; the runs are
+// then merged with the sorted visited file, which drops duplicates and states seen in
+// any earlier layer in one sequential pass and writes the next layer and the next
+// visited file. Run files are front-coded (each record stores only what differs from
+// the one before) and are read with positional reads into a direct buffer. Nothing is
+// memory-mapped, so a run can be deleted as soon as its reader is closed, on every OS.
+class KlondikeExternalSolver {
+    static final int RECORD = KlondikeSnapshot.POSITION;
+    static final int IO_BUFFER = 1 << 20;
+
+    final Path dir;
+    int bufferMegabytes = 256;
+    boolean verbose;
+    final List<Long> layerSizes = new ArrayList<>();
+    long visited;
+
+    private final KlondikeSolver helper = new KlondikeSolver(); // auto-play
+    private final int[] moves = new int[KlondikeModel.MAX_MOVES];
+    private final int[] columns = new int[7];
+    private byte[] sortBuffer;
+    private ByteBuffer sortView;
+    private int[] offsets;
+    private int buffered;
+    private final List<Path> runs = new ArrayList<>();
+
+    KlondikeExternalSolver(Path dir) {
+        this.dir = dir;
+    }
+
+    // WON once a layer reaches a won position (moves holds no line, only states are
+    // kept), UNWINNABLE once no new state remains
+    KlondikeSolver.Result solve(KlondikeModel start) throws IOException {
+        long t0 = System.currentTimeMillis();
+        Files.createDirectories(dir);
+        int capacity = (int) Math.min(Integer.MAX_VALUE / RECORD, (long) bufferMegabytes * (1 << 20) / RECORD);
+        sortBuffer = new byte[capacity * RECORD];
+        sortView = ByteBuffer.wrap(sortBuffer);
+        offsets = new int[capacity];
+        layerSizes.clear();
+
+        KlondikeModel work = start.clone();
+        helper.autoPlay(work, 0);
+        if (work.isWon()) return result(KlondikeSolver.Status.WON, t0);
+        Path layer = dir.resolve("layer-0.run"), seen = dir.resolve("visited-0.run");
+        buffered = 0;
+        add(work);
+        flushRun(layer);
+        Files.copy(layer, seen, StandardCopyOption.REPLACE_EXISTING);
+        layerSizes.add(1L);
+        visited = 1;
+
+        try {
+            for (int depth = 0; ; depth++) {
+                if (expand(layer, work)) return result(KlondikeSolver.Status.WON, t0);
+                Path nextLayer = dir.resolve("layer-" + (depth + 1) + ".run");
+                Path nextSeen = dir.resolve("visited-" + (depth + 1) + ".run");
+                long fresh = merge(seen, nextLayer, nextSeen);
+                Files.delete(layer);
+                Files.delete(seen);
+                layer = nextLayer;
+                seen = nextSeen;
+                layerSizes.add(fresh);
+                visited += fresh;
+                if (verbose) {
+                    System.out.println("layer " + (depth + 1) + ": " + fresh + " states, " + visited + " seen, "
+                            + Files.size(seen) / Math.max(1, visited) + " bytes/state on disk");
+                }
+                if (fresh == 0) return result(KlondikeSolver.Status.UNWINNABLE, t0);
+            }
+        } finally {
+            Files.deleteIfExists(layer);
+            Files.deleteIfExists(seen);
+            for (Path run : runs) Files.deleteIfExists(run);
+            runs.clear();
+        }
+    }
+
+    private KlondikeSolver.Result result(KlondikeSolver.Status status, long t0) {
+        return new KlondikeSolver.Result(status, new int[0], visited, System.currentTimeMillis() - t0);
+    }
+
+    // Writes the successors of every state in layer into sorted runs; true on a win
+    private boolean expand(Path layer, KlondikeModel work) throws IOException {
+        buffered = 0;
+        try (RunReader in = new RunReader(layer)) {
+            ByteBuffer record = ByteBuffer.wrap(in.current);
+            while (in.next()) {
+                record.clear();
+                KlondikeSnapshot.readPosition(record, work);
+                int n = KlondikeSolver.generate(work, moves, 0);
+                for (int i = 0; i < n; i++) {
+                    int token = work.make(moves[i]);
+                    int autos = helper.autoPlay(work, 0);
+                    if (work.isWon()) return true;
+                    add(work);
+                    helper.undoAutoPlay(work, autos);
+                    work.unmake(moves[i], token);
+                }
+            }
+        }
+        if (buffered > 0) spill();
+        return false;
+    }
+
+    private void add(KlondikeModel model) throws IOException {
+        if (buffered == offsets.length) spill();
+        model.columnOrder(columns);
+        sortView.position(buffered * RECORD);
+        KlondikeSnapshot.writePosition(model, sortView, columns);
+        offsets[buffered] = buffered * RECORD;
+        buffered++;
+    }
+
+    // Sorts the buffered states and writes them, without duplicates, as one run
+    private void flushRun(Path file) throws IOException {
+        sort(offsets, 0, buffered);
+        try (RunWriter out = new RunWriter(file)) {
+            for (int i = 0; i < buffered; i++) {
+                if (i > 0 && compare(sortBuffer, offsets[i - 1], sortBuffer, offsets[i]) == 0) continue;
+                out.write(sortBuffer, offsets[i]);
+            }
+        }
+        buffered = 0;
+    }
+
+    private void spill() throws IOException {
+        Path run = dir.resolve("run-" + runs.size() + ".tmp");
+        runs.add(run);
+        flushRun(run);
+    }
+
+    // Merges the runs of the last expansion against the visited file. States in no
+    // earlier layer form the next layer; the union becomes the next visited file.
+    private long merge(Path seen, Path nextLayer, Path nextSeen) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>((a, b) -> compare(a.current, 0, b.current, 0));
+        long fresh = 0;
+        try (RunReader old = new RunReader(seen);
+             RunWriter layerOut = new RunWriter(nextLayer);
+             RunWriter seenOut = new RunWriter(nextSeen)) {
+            for (Path run : runs) {
+                RunReader r = new RunReader(run);
+                if (r.next()) heap.add(r);
+                else r.close();
+            }
+            byte[] last = new byte[RECORD];
+            boolean hasLast = false, hasOld = old.next();
+            while (!heap.isEmpty()) {
+                RunReader r = heap.poll();
+                byte[] rec = r.current;
+                if (!hasLast || compare(last, 0, rec, 0) != 0) {
+                    System.arraycopy(rec, 0, last, 0, RECORD);
+                    hasLast = true;
+                    int c = 1;
+                    while (hasOld && (c = compare(old.current, 0, last, 0)) < 0) {
+                        seenOut.write(old.current, 0);
+                        hasOld = old.next();
+                    }
+                    if (!hasOld || c != 0) {
+                        layerOut.write(last, 0);
+                        fresh++;
+                    }
+                    // An old state equal to last is written by the loop above next time round
+                    if (!hasOld || c > 0) seenOut.write(last, 0);
+                }
+                if (r.next()) heap.add(r);
+                else r.close();
+            }
+            while (hasOld) {
+                seenOut.write(old.current, 0);
+                hasOld = old.next();
+            }
+        } finally {
+            for (RunReader r : heap) r.close();
+            for (Path run : runs) Files.deleteIfExists(run);
+            runs.clear();
+        }
+        return fresh;
+    }
+
+    static int compare(byte[] a, int ao, byte[] b, int bo) {
+        return Arrays.compareUnsigned(a, ao, ao + RECORD, b, bo, bo + RECORD);
+    }
+
+    // Quicksort of record offsets by record bytes
+    private void sort(int[] a, int lo, int hi) {
+        while (hi - lo > 16) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(sortBuffer, a[mid], sortBuffer, a[lo]) < 0) swap(a, mid, lo);
+            if (compare(sortBuffer, a[hi - 1], sortBuffer, a[lo]) < 0) swap(a, hi - 1, lo);
+            if (compare(sortBuffer, a[hi - 1], sortBuffer, a[mid]) < 0) swap(a, hi - 1, mid);
+            int pivot = a[mid], i = lo, j = hi - 1;
+            while (i <= j) {
+                while (compare(sortBuffer, a[i], sortBuffer, pivot) < 0) i++;
+                while (compare(sortBuffer, a[j], sortBuffer, pivot) > 0) j--;
+                if (i <= j) swap(a, i++, j--);
+            }
+            // Recurse into the smaller side so the stack stays logarithmic
+            if (j - lo < hi - i) {
+                sort(a, lo, j + 1);
+                lo = i;
+            } else {
+                sort(a, i, hi);
+                hi = j + 1;
+            }
+        }
+        for (int i = lo + 1; i < hi; i++) {
+            int x = a[i], j = i - 1;
+            for (; j >= lo && compare(sortBuffer, a[j], sortBuffer, x) > 0; j--) a[j + 1] = a[j];
+            a[j + 1] = x;
+        }
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    // Front-coded records: the length of the prefix shared with the previous record,
+    // then the rest of the record
+    static final class RunWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER);
+        private final byte[] last = new byte[RECORD];
+
+        RunWriter(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void write(byte[] rec, int off) throws IOException {
+            int shared = Arrays.mismatch(last, 0, RECORD, rec, off, off + RECORD);
+            if (shared < 0) shared = RECORD;
+            if (buffer.remaining() < RECORD + 1) drain();
+            buffer.put((byte) shared).put(rec, off + shared, RECORD - shared);
+            System.arraycopy(rec, off + shared, last, shared, RECORD - shared);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            drain();
+            channel.close();
+        }
+    }
+
+    static final class RunReader implements Closeable {
+        final byte[] current = new byte[RECORD];
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER);
+        private final long size;
+        private long position; // file offset of the end of the buffered bytes
+
+        RunReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            size = channel.size();
+            buffer.flip();
+        }
+
+        boolean next() throws IOException {
+            // Refill before a record could run off the end of the buffer
+            if (buffer.remaining() < RECORD + 1 && position < size) {
+                buffer.compact();
+                while (buffer.hasRemaining() && position < size) {
+                    int n = channel.read(buffer, position);
+                    if (n < 0) break;
+                    position += n;
+                }
+                buffer.flip();
+            }
+            if (!buffer.hasRemaining()) return false;
+            int shared = buffer.get() & 0xff;
+            buffer.get(current, shared, RECORD - shared);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    //   java KlondikeExternalSolver <dir> <deal>... [-mb megabytes]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: KlondikeExternalSolver <dir> <deal>... [-mb sortBufferMegabytes]");
+            return;
+        }
+        KlondikeExternalSolver solver = new KlondikeExternalSolver(Paths.get(args[0]));
+        solver.verbose = true;
+        List<Long> deals = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-mb")) solver.bufferMegabytes = Integer.parseInt(args[++i]);
+            else deals.add(Long.parseLong(args[i]));
+        }
+        for (long deal : deals) {
+            KlondikeSolver.Result r = solver.solve(new KlondikeModel(deal));
+            System.out.println("deal " + deal + ": " + r.status + " after " + (solver.layerSizes.size() - 1)
+                    + " layers, states=" + r.nodes + " time=" + r.millis + "ms");
+        }
+    }
+}
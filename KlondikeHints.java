@@ -0,0 +1,104 @@
+import java.util.StringJoiner;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Anytime hint search used by the hint thread: IdaStarSearch on the model itself, with
+// the goal a won game and the estimate the cards not yet home plus the cards still face
+// down. Moves that bring a card home or turn one up leave f unchanged, so each iteration
+// allows one more move that does neither. When the time budget runs out before a win is
+// found, the hint is the line to the position with the lowest estimate reached. A hint is
+// ready after the first iteration and improves with the budget. The transposition table
+// is cleared for each search because it would hide positions from the best-line tracking.
+class KlondikeHints {
+    static final int HINT_TABLE_MB = 8;
+    static final long DEFAULT_BUDGET_MILLIS = 300;
+
+    long budgetMillis = DEFAULT_BUDGET_MILLIS;
+    BooleanSupplier cancelled; // polled during the search; true stops it at once
+
+    final IdaStarSearch<KlondikeModel> search;
+    final TranspositionTable hintTable = new TranspositionTable(HINT_TABLE_MB, false);
+    final int[] rootMoves = new int[KlondikeModel.MAX_MOVES];
+    long rootHash;
+    int lastMove;
+
+    KlondikeHints() {
+        search = new IdaStarSearch<>(this::generate, KlondikeHints::estimate);
+        search.maxMoves = KlondikeModel.MAX_MOVES;
+        search.table = hintTable;
+    }
+
+    // Hint text for model, or null if there is no useful move. model is searched in place
+    // and left as it was; progress, if given, gets the best hint after every iteration.
+    String find(KlondikeModel model, int lastMove, Consumer<String> progress) {
+        this.lastMove = lastMove;
+        rootHash = model.getStateHash();
+        int n = generate(model, rootMoves);
+        if (n == 0) return null;
+
+        hintTable.clear();
+        search.maxMillis = budgetMillis;
+        search.cancelled = cancelled;
+        search.onIteration = progress == null ? null : line -> {
+            if (line.length > 0) progress.accept(describeLine(line));
+        };
+        SearchResult r = search.solve(model);
+        search.onIteration = null;
+        int[] line = r.status == SearchResult.Status.SOLVED ? r.moves : search.bestLine();
+        // Nothing beats the position as it is: fall back on the first move worth trying
+        return describeLine(line.length > 0 ? line : new int[] {rootMoves[0]});
+    }
+
+    // Moves worth searching from model. Lines that come back to a position are cut by the
+    // search; at the root, undoing the player's last move is left out as well.
+    int generate(KlondikeModel model, int[] out) {
+        int n = 0, generated = model.generateMoves(out, 0);
+        boolean root = model.getStateHash() == rootHash;
+        for (int i = 0; i < generated; i++) {
+            int move = out[i];
+            if (isPrunable(model, move) || (root && isReversal(move, lastMove))) continue;
+            out[n++] = move;
+        }
+        return n;
+    }
+
+    // Progress still to make: cards not yet home plus cards still face down
+    static int estimate(KlondikeModel model) {
+        return 52 - KlondikeSolver.onFoundation(model) + KlondikeSolver.faceDown(model);
+    }
+
+    // Moves never worth searching: a whole column moved to an empty one, or recycling
+    // while the stock still has cards
+    static boolean isPrunable(KlondikeModel model, int move) {
+        return KlondikeSolver.isPointless(model, move)
+                || (move == KlondikeModel.RECYCLE_MOVE && model.size(KlondikeModel.STOCK) > 0);
+    }
+
+    // Moving a stack straight back to the column it just came from
+    static boolean isReversal(int move, int previous) {
+        return KlondikeModel.moveType(move) == KlondikeModel.TABLEAU_TO_TABLEAU
+                && KlondikeModel.moveType(previous) == KlondikeModel.TABLEAU_TO_TABLEAU
+                && KlondikeModel.moveFrom(move) == KlondikeModel.moveTo(previous)
+                && KlondikeModel.moveTo(move) == KlondikeModel.moveFrom(previous);
+    }
+
+    // Draws and recycles leading up to the first real move are spelled out as a prefix,
+    // with a run of single draws told as one
+    static String describeLine(int[] line) {
+        StringJoiner hint = new StringJoiner(", then: ");
+        int drawn = 0;
+        for (int move : line) {
+            int type = KlondikeModel.moveType(move);
+            if (type == KlondikeModel.DRAW) {
+                drawn += KlondikeModel.moveCount(move);
+                continue;
+            }
+            if (drawn > 0) hint.add(ks.describe(KlondikeModel.move(KlondikeModel.DRAW, KlondikeModel.STOCK, KlondikeModel.WASTE, drawn)));
+            drawn = 0;
+            hint.add(ks.describe(move));
+            if (type != KlondikeModel.RECYCLE && type != KlondikeModel.RECYCLE_DRAW) break;
+        }
+        if (drawn > 0) hint.add(ks.describe(KlondikeModel.move(KlondikeModel.DRAW, KlondikeModel.STOCK, KlondikeModel.WASTE, drawn)));
+        return hint.toString();
+    }
+}
@@ -0,0 +1,630 @@
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Pile interface
+interface Pile {
+    List<Card> getCards();
+    void addCard(Card c);
+    Card removeTopCard();
+    Card topCard();
+    boolean isEmpty();
+}
+
+// View of one pile of a KlondikeModel; the cards themselves live in the model's byte state
+class SimplePile implements Pile,Serializable {
+    protected final KlondikeModel model;
+    protected final int pile;
+
+    SimplePile(KlondikeModel model, int pile) {
+        this.model = model;
+        this.pile = pile;
+    }
+
+    @Override
+    public List<Card> getCards() {
+        int n = model.size(pile);
+        List<Card> cards = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) cards.add(model.card(model.cardAt(pile, i)));
+        return cards;
+    }
+    // The card keeps whatever face-up state the model last gave it
+    @Override
+    public void addCard(Card c) {
+        model.push(pile, c.id());
+    }
+    @Override
+    public Card removeTopCard() { return isEmpty() ? null : model.card(model.pop(pile)); }
+    @Override
+    public Card topCard() { return isEmpty() ? null : model.card(model.top(pile)); }
+    @Override
+    public boolean isEmpty() { return model.size(pile) == 0; }
+    public int size() { return model.size(pile); }
+}
+
+// Tableau pile
+class TableauPile extends SimplePile {
+    TableauPile(KlondikeModel model, int pile) { super(model, pile); }
+
+    // Validate if a card (or sequence) can be placed on this pile
+    boolean canPlace(Card c) {
+        return model.canPlaceOnTableau(c.id(), pile);
+    }
+}
+
+// Foundation pile
+class FoundationPile extends SimplePile {
+    Card.Suit suit;
+
+    FoundationPile(KlondikeModel model, int pile, Card.Suit s) {
+        super(model, pile);
+        suit = s;
+    }
+
+    boolean canPlace(Card c) {
+        return model.canPlaceOnFoundation(c.id(), pile);
+    }
+}
+
+// Stock pile
+class StockPile extends SimplePile {
+    final int maxRecycles = 3;
+
+    StockPile(KlondikeModel model) { super(model, KlondikeModel.STOCK); }
+
+    int recycleCount() {
+        return model.state[KlondikeModel.RECYCLES];
+    }
+
+    boolean canRecycle() {
+        return recycleCount() < maxRecycles;
+    }
+}
+
+// Waste pile
+class WastePile extends SimplePile {
+    WastePile(KlondikeModel model) { super(model, KlondikeModel.WASTE); }
+}
+
+// Game model holding all piles and rules.
+// The whole layout is one byte[]: a size byte per pile, the recycle count, then a
+// fixed-capacity region per pile holding card ids (suit * 13 + rank - 1) bottom to top.
+// Face-up state is a bitmask over card ids. Moves are applied and reverted in place
+// (make/unmake), and a copy is a single arraycopy. A 64-bit Zobrist hash keyed by
+// (card, slot, face-up) and the recycle count is kept up to date by every change.
+// Tableau columns are interchangeable under the rules, so each column is hashed by
+// card depth alone and the column hashes are mixed and summed: positions that differ
+// only in column order share one state hash. columnOrder gives the matching canonical
+// column order for translating stored moves. The model is itself a GameState, so the
+// search drivers can run on it directly.
+class KlondikeModel implements Cloneable,Serializable,GameState{
+    static final int TABLEAU = 0, FOUNDATION = 7, STOCK = 11, WASTE = 12, PILES = 13;
+    static final int RECYCLES = PILES;
+    static final int[] CAPACITY = {19, 19, 19, 19, 19, 19, 19, 13, 13, 13, 13, 24, 24};
+    static final int[] BASE = new int[PILES];
+    static final int STATE_BYTES;
+    static {
+        int offset = RECYCLES + 1;
+        for (int p = 0; p < PILES; p++) {
+            BASE[p] = offset;
+            offset += CAPACITY[p];
+        }
+        STATE_BYTES = offset;
+    }
+
+    static final int SLOTS = STATE_BYTES - BASE[0];
+    static final long[] ZOBRIST = new long[52 * SLOTS * 2];
+    static final long[] RECYCLE_KEYS = new long[8];
+    static {
+        long z = 0x2545f4914f6cdd1dL;
+        for (int i = 0; i < ZOBRIST.length; i++) ZOBRIST[i] = z = LongHashSet.mix(z + 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < RECYCLE_KEYS.length; i++) RECYCLE_KEYS[i] = z = LongHashSet.mix(z + 0x9e3779b97f4a7c15L);
+    }
+
+    static long key(int card, int slot, boolean up) {
+        return ZOBRIST[(card * SLOTS + slot - BASE[0]) * 2 + (up ? 1 : 0)];
+    }
+
+    final byte[] state = new byte[STATE_BYTES];
+    long faceUp;
+    long hash = RECYCLE_KEYS[0];                // foundations, stock, waste, recycles
+    final long[] columnHash = new long[7];      // each tableau column, keyed by depth
+    long deal = -1; // deal number this game was dealt from
+
+    // Bit p is set when pile p changed since the view last asked (takeDirty)
+    static final int ALL_PILES = (1 << PILES) - 1;
+    int dirty = ALL_PILES;
+
+    TableauPile[] tableau = new TableauPile[7];
+    FoundationPile[] foundation = new FoundationPile[4];
+    StockPile stock = new StockPile(this);
+    WastePile waste = new WastePile(this);
+
+    {
+        for (int i = 0; i < 7; i++) tableau[i] = new TableauPile(this, TABLEAU + i);
+        foundation[0] = new FoundationPile(this, FOUNDATION, Card.Suit.HEARTS);
+        foundation[1] = new FoundationPile(this, FOUNDATION + 1, Card.Suit.DIAMONDS);
+        foundation[2] = new FoundationPile(this, FOUNDATION + 2, Card.Suit.CLUBS);
+        foundation[3] = new FoundationPile(this, FOUNDATION + 3, Card.Suit.SPADES);
+    }
+
+    // Same for every ordering of the tableau columns
+    public long getStateHash() {
+        long h = hash;
+        for (int t = 0; t < 7; t++) h += LongHashSet.mix(columnHash[t]);
+        return h;
+    }
+
+    @Override
+    public long hash() {
+        return getStateHash();
+    }
+
+    @Override
+    public boolean isGoal() {
+        return isWon();
+    }
+
+    // Hash recomputed from scratch; must always equal the incrementally maintained one
+    long computeHash() {
+        long h = RECYCLE_KEYS[state[RECYCLES]];
+        for (int p = FOUNDATION; p < PILES; p++) {
+            for (int i = 0; i < state[p]; i++) {
+                int c = cardAt(p, i);
+                h ^= key(c, BASE[p] + i, isFaceUp(c));
+            }
+        }
+        for (int t = 0; t < 7; t++) {
+            long column = 0;
+            for (int i = 0; i < state[t]; i++) {
+                int c = cardAt(t, i);
+                column ^= key(c, BASE[TABLEAU] + i, isFaceUp(c));
+            }
+            h += LongHashSet.mix(column);
+        }
+        return h;
+    }
+
+    // Hash contribution of card at slot i (an index into state) of pile
+    private void toggleKey(int pile, int i, int card, boolean up) {
+        if (pile < FOUNDATION) columnHash[pile] ^= key(card, i - BASE[pile] + BASE[TABLEAU], up);
+        else hash ^= key(card, i, up);
+    }
+
+    // order[k] = the column that comes k-th in canonical order (by column hash, then index)
+    void columnOrder(int[] order) {
+        for (int t = 0; t < 7; t++) {
+            int k = t;
+            while (k > 0 && Long.compareUnsigned(columnHash[order[k - 1]], columnHash[t]) > 0) {
+                order[k] = order[k - 1];
+                k--;
+            }
+            order[k] = t;
+        }
+    }
+
+    // Rewrite the tableau columns of a move through map (column -> column)
+    static int mapColumns(int move, int[] map) {
+        if (move == NO_MOVE) return move;
+        int from = moveFrom(move), to = moveTo(move);
+        if (from < FOUNDATION) from = map[from];
+        if (to < FOUNDATION) to = map[to];
+        return move(moveType(move), from, to, moveCount(move));
+    }
+
+    // Random deal, still numbered so it can be replayed
+    KlondikeModel() {
+        this(new Random().nextInt(Integer.MAX_VALUE));
+    }
+
+    // Deal number n is the deck shuffled by java.util.Random(n), so deals are reproducible
+    KlondikeModel(long deal) {
+        this.deal = deal;
+        List<Integer> deck = new ArrayList<>();
+        for (int id = 0; id < 52; id++) deck.add(id);
+
+        Collections.shuffle(deck, new Random(deal));
+
+        // Deal cards to tableau
+        int index = 0;
+        for (int i = 0; i < 7; i++) {
+            for (int j = 0; j <= i; j++) {
+                int c = deck.get(index++);
+                setFaceUp(c, j == i);
+                push(TABLEAU + i, c);
+            }
+        }
+        // Remaining to stock
+        for (; index < deck.size(); index++)
+            push(STOCK, deck.get(index));
+    }
+
+    // Copy of another model's state
+    private KlondikeModel(KlondikeModel src) {
+        System.arraycopy(src.state, 0, state, 0, STATE_BYTES);
+        faceUp = src.faceUp;
+        hash = src.hash;
+        System.arraycopy(src.columnHash, 0, columnHash, 0, 7);
+        deal = src.deal;
+    }
+
+    // --- Card ids ---
+    static int rank(int card) { return card % 13 + 1; }
+    static int suit(int card) { return card / 13; }
+    static boolean isRed(int card) { return card < 26; }
+
+    Card card(int id) {
+        return Card.of(id);
+    }
+
+    // --- Primitive pile access ---
+    int size(int pile) { return state[pile]; }
+    int recycles() { return state[RECYCLES]; }
+    int cardAt(int pile, int i) { return state[BASE[pile] + i]; }
+    int top(int pile) { return state[pile] == 0 ? -1 : state[BASE[pile] + state[pile] - 1]; }
+    boolean isFaceUp(int card) { return (faceUp & (1L << card)) != 0; }
+
+    // Only for cards not currently on a pile; placed cards are turned with turn()
+    void setFaceUp(int card, boolean up) {
+        if (up) faceUp |= 1L << card;
+        else faceUp &= ~(1L << card);
+    }
+
+    void push(int pile, int card) {
+        dirty |= 1 << pile;
+        int i = BASE[pile] + state[pile]++;
+        state[i] = (byte) card;
+        toggleKey(pile, i, card, isFaceUp(card));
+    }
+
+    // Vacated slots are zeroed so equal positions always have equal bytes
+    int pop(int pile) {
+        dirty |= 1 << pile;
+        int i = BASE[pile] + --state[pile];
+        int c = state[i];
+        state[i] = 0;
+        toggleKey(pile, i, c, isFaceUp(c));
+        return c;
+    }
+
+    // Turn the top card of a pile face up or down
+    void turn(int pile, boolean up) {
+        dirty |= 1 << pile;
+        int i = BASE[pile] + state[pile] - 1;
+        int c = state[i];
+        toggleKey(pile, i, c, isFaceUp(c));
+        toggleKey(pile, i, c, up);
+        setFaceUp(c, up);
+    }
+
+    void setRecycles(int n) {
+        dirty |= 1 << STOCK;
+        hash ^= RECYCLE_KEYS[state[RECYCLES]] ^ RECYCLE_KEYS[n];
+        state[RECYCLES] = (byte) n;
+    }
+
+    // --- Legality, checked directly against pile tops ---
+    boolean canPlaceOnTableau(int card, int pile) {
+        int top = top(pile);
+        if (top < 0) return rank(card) == 13; // Only King can start empty tableau
+        return isFaceUp(top) && rank(top) == rank(card) + 1 && isRed(top) != isRed(card);
+    }
+
+    boolean canPlaceOnFoundation(int card, int pile) {
+        // Foundations are built A..K, so the pile size is the rank on top
+        return suit(card) == pile - FOUNDATION && rank(card) == state[pile] + 1;
+    }
+
+    boolean canMoveTableauToTableau(int fromIndex, int toIndex, int startCardIndex) {
+        int from = TABLEAU + fromIndex, n = state[from];
+        if (n == 0 || startCardIndex < 0 || startCardIndex >= n) return false;
+        int first = cardAt(from, startCardIndex);
+        if (!isFaceUp(first)) return false;
+
+        // Validate sequence descending rank alternating colors
+        for (int i = startCardIndex; i < n - 1; i++) {
+            int c1 = cardAt(from, i), c2 = cardAt(from, i + 1);
+            if (!(rank(c1) == rank(c2) + 1 && isRed(c1) != isRed(c2)))
+                return false;
+        }
+        return canPlaceOnTableau(first, TABLEAU + toIndex);
+    }
+
+    // --- Moves packed into ints: type | from << 3 | to << 7 | count << 11 ---
+    static final int NO_MOVE = 0;
+    static final int WASTE_TO_FOUNDATION = 1, WASTE_TO_TABLEAU = 2, TABLEAU_TO_FOUNDATION = 3,
+            TABLEAU_TO_TABLEAU = 4, DRAW = 5, RECYCLE = 6, RECYCLE_DRAW = 7;
+    static final int MAX_MOVES = 192; // upper bound on legal moves in any position
+    // DRAW draws count cards (the UI always draws one); RECYCLE_DRAW recycles the waste
+    // and then draws count cards. Both exist so a search can treat a run of stock
+    // turns as one move.
+
+    static int move(int type, int from, int to, int count) {
+        return type | from << 3 | to << 7 | count << 11;
+    }
+
+    static int moveType(int move) { return move & 7; }
+    static int moveFrom(int move) { return (move >> 3) & 15; }
+    static int moveTo(int move) { return (move >> 7) & 15; }
+    static int moveCount(int move) { return move >>> 11; }
+
+    static final int DRAW_MOVE = move(DRAW, STOCK, WASTE, 1);
+    static final int RECYCLE_MOVE = move(RECYCLE, WASTE, STOCK, 0);
+
+    // Write all legal moves into out starting at n and return the new end. Order:
+    // waste to foundation, waste to tableau, tableau to foundation, tableau to tableau,
+    // draw, recycle.
+    int generateMoves(int[] out, int n) {
+        int w = top(WASTE);
+        if (w >= 0) {
+            int f = FOUNDATION + suit(w);
+            if (canPlaceOnFoundation(w, f)) out[n++] = move(WASTE_TO_FOUNDATION, WASTE, f, 1);
+            for (int t = 0; t < 7; t++) {
+                if (canPlaceOnTableau(w, t)) out[n++] = move(WASTE_TO_TABLEAU, WASTE, t, 1);
+            }
+        }
+        for (int t = 0; t < 7; t++) {
+            int c = top(t);
+            if (c >= 0 && isFaceUp(c) && canPlaceOnFoundation(c, FOUNDATION + suit(c))) {
+                out[n++] = move(TABLEAU_TO_FOUNDATION, t, FOUNDATION + suit(c), 1);
+            }
+        }
+        for (int from = 0; from < 7; from++) {
+            int size = state[from];
+            if (size == 0) continue;
+            // Lowest card of the movable run: face up and in sequence up to the top
+            int start = size - 1;
+            while (start > 0 && isFaceUp(cardAt(from, start - 1))) {
+                int below = cardAt(from, start - 1), c = cardAt(from, start);
+                if (rank(below) != rank(c) + 1 || isRed(below) == isRed(c)) break;
+                start--;
+            }
+            for (int i = start; i < size; i++) {
+                int c = cardAt(from, i);
+                if (!isFaceUp(c)) continue;
+                for (int to = 0; to < 7; to++) {
+                    if (to != from && canPlaceOnTableau(c, to)) out[n++] = move(TABLEAU_TO_TABLEAU, from, to, size - i);
+                }
+            }
+        }
+        if (state[STOCK] > 0) out[n++] = DRAW_MOVE;
+        if (stock.canRecycle()) out[n++] = RECYCLE_MOVE;
+        return n;
+    }
+
+    boolean isLegal(int move) {
+        int from = moveFrom(move), to = moveTo(move);
+        return switch (moveType(move)) {
+            case WASTE_TO_FOUNDATION, WASTE_TO_TABLEAU -> from == WASTE && moveCount(move) == 1 && state[WASTE] > 0
+                    && (to >= FOUNDATION ? to < STOCK && canPlaceOnFoundation(top(WASTE), to) : canPlaceOnTableau(top(WASTE), to));
+            case TABLEAU_TO_FOUNDATION -> from < FOUNDATION && to >= FOUNDATION && to < STOCK && moveCount(move) == 1
+                    && state[from] > 0 && isFaceUp(top(from)) && canPlaceOnFoundation(top(from), to);
+            case TABLEAU_TO_TABLEAU -> from < FOUNDATION && to < FOUNDATION && from != to
+                    && canMoveTableauToTableau(from, to, state[from] - moveCount(move));
+            case DRAW -> moveCount(move) > 0 && state[STOCK] >= moveCount(move);
+            case RECYCLE -> stock.canRecycle();
+            case RECYCLE_DRAW -> stock.canRecycle() && moveCount(move) <= state[STOCK] + state[WASTE];
+            default -> false;
+        };
+    }
+
+    // Apply a legal move; returns the token unmake needs
+    @Override
+    public int make(int move) {
+        return switch (moveType(move)) {
+            case DRAW -> {
+                for (int k = moveCount(move); k > 0; k--) makeDraw();
+                yield 0;
+            }
+            case RECYCLE -> makeRecycle();
+            case RECYCLE_DRAW -> {
+                int token = makeRecycle();
+                for (int k = moveCount(move); k > 0; k--) makeDraw();
+                yield token;
+            }
+            default -> makeTransfer(moveFrom(move), moveTo(move), moveCount(move));
+        };
+    }
+
+    @Override
+    public void unmake(int move, int token) {
+        switch (moveType(move)) {
+            case DRAW -> {
+                for (int k = moveCount(move); k > 0; k--) unmakeDraw();
+            }
+            case RECYCLE -> unmakeRecycle(token);
+            case RECYCLE_DRAW -> {
+                for (int k = moveCount(move); k > 0; k--) unmakeDraw();
+                unmakeRecycle(token);
+            }
+            default -> unmakeTransfer(moveFrom(move), moveTo(move), moveCount(move), token);
+        }
+    }
+
+    // --- make/unmake: every make returns the token its unmake needs ---
+
+    // Move the top count cards of from onto to, keeping their order. Turns up the newly
+    // exposed tableau card; returns 1 if it did.
+    int makeTransfer(int from, int to, int count) {
+        move(from, to, count);
+        if (from < FOUNDATION && state[from] > 0 && !isFaceUp(top(from))) {
+            turn(from, true);
+            return 1;
+        }
+        return 0;
+    }
+
+    void unmakeTransfer(int from, int to, int count, int flipped) {
+        if (flipped != 0) turn(from, false);
+        move(to, from, count);
+    }
+
+    private void move(int from, int to, int count) {
+        int src = BASE[from] + state[from] - count, dst = BASE[to] + state[to];
+        for (int k = 0; k < count; k++) {
+            int c = state[src + k];
+            boolean up = isFaceUp(c);
+            toggleKey(from, src + k, c, up);
+            toggleKey(to, dst + k, c, up);
+        }
+        System.arraycopy(state, src, state, dst, count);
+        Arrays.fill(state, src, src + count, (byte) 0);
+        dirty |= 1 << from | 1 << to;
+        state[from] -= count;
+        state[to] += count;
+    }
+
+    void makeDraw() {
+        int c = pop(STOCK);
+        setFaceUp(c, true);
+        push(WASTE, c);
+    }
+
+    void unmakeDraw() {
+        int c = pop(WASTE);
+        setFaceUp(c, false);
+        push(STOCK, c);
+    }
+
+    // Returns the number of cards turned back onto the stock
+    int makeRecycle() {
+        int n = state[WASTE];
+        while (state[WASTE] > 0) {
+            int c = pop(WASTE);
+            setFaceUp(c, false);
+            push(STOCK, c);
+        }
+        setRecycles(state[RECYCLES] + 1);
+        return n;
+    }
+
+    void unmakeRecycle(int count) {
+        setRecycles(state[RECYCLES] - 1);
+        for (int i = 0; i < count; i++) {
+            int c = pop(STOCK);
+            setFaceUp(c, true);
+            push(WASTE, c);
+        }
+    }
+
+    // Move card from tableau to foundation, or tableau to tableau, waste to tableau/foundation, etc.
+    boolean moveTableauToFoundation(int tabIndex, int foundationIndex) {
+        int t = top(TABLEAU + tabIndex);
+        if (t < 0 || !isFaceUp(t)) return false;
+        if (canPlaceOnFoundation(t, FOUNDATION + foundationIndex)) {
+            makeTransfer(TABLEAU + tabIndex, FOUNDATION + foundationIndex, 1);
+            return true;
+        }
+        return false;
+    }
+
+    boolean moveWasteToFoundation(int foundationIndex) {
+        int c = top(WASTE);
+        if (c >= 0 && canPlaceOnFoundation(c, FOUNDATION + foundationIndex)) {
+            makeTransfer(WASTE, FOUNDATION + foundationIndex, 1);
+            return true;
+        }
+        return false;
+    }
+
+    boolean moveWasteToTableau(int tabIndex) {
+        int c = top(WASTE);
+        if (c >= 0 && canPlaceOnTableau(c, TABLEAU + tabIndex)) {
+            makeTransfer(WASTE, TABLEAU + tabIndex, 1);
+            return true;
+        }
+        return false;
+    }
+
+    boolean moveTableauToTableau(int fromIndex, int toIndex, int startCardIndex) {
+        if (!canMoveTableauToTableau(fromIndex, toIndex, startCardIndex)) return false;
+        makeTransfer(TABLEAU + fromIndex, TABLEAU + toIndex, state[TABLEAU + fromIndex] - startCardIndex);
+        return true;
+    }
+
+    boolean flipTopTableau(int tabIndex) {
+        int t = top(TABLEAU + tabIndex);
+        if (t >= 0 && !isFaceUp(t)) {
+            turn(TABLEAU + tabIndex, true);
+            return true;
+        }
+        return false;
+    }
+
+    // Draw from stock to waste
+    boolean drawFromStock() {
+        if (stock.isEmpty()) return false;
+        makeDraw();
+        return true;
+    }
+
+    // Recycle waste into stock if possible
+    boolean recycleStock() {
+        if (!stock.canRecycle()) return false;
+        makeRecycle();
+        return true;
+    }
+
+    // Check if game won
+    boolean isWon() {
+        for (int f = FOUNDATION; f < FOUNDATION + 4; f++) {
+            if (state[f] != 13) return false;
+        }
+        return true;
+    }
+
+    static final long ALL_CARDS = (1L << 52) - 1;
+
+    // Stock and waste empty and every tableau card face up: each column is then a
+    // descending run, so the lowest card not yet home is always on top of a column and
+    // the game plays itself out. Stock cards are always face down, so the mask alone
+    // covers the stock.
+    boolean canAutoComplete() {
+        return faceUp == ALL_CARDS && state[WASTE] == 0;
+    }
+
+    // The foundation moves that finish a game canAutoComplete() accepts, rank by rank,
+    // into out; returns how many
+    int autoCompleteMoves(int[] out) {
+        int n = 0;
+        int[] height = new int[7];
+        for (int t = 0; t < 7; t++) height[t] = state[TABLEAU + t];
+        for (int rank = 1; rank <= 13; rank++) {
+            for (int s = 0; s < 4; s++) {
+                if (state[FOUNDATION + s] >= rank) continue;
+                int card = s * 13 + rank - 1;
+                for (int t = 0; t < 7; t++) {
+                    if (height[t] > 0 && cardAt(TABLEAU + t, height[t] - 1) == card) {
+                        out[n++] = move(TABLEAU_TO_FOUNDATION, TABLEAU + t, FOUNDATION + s, 1);
+                        height[t]--;
+                        break;
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    public KlondikeModel clone() {
+        return new KlondikeModel(this);
+    }
+
+    void copyFrom(KlondikeModel src) {
+        System.arraycopy(src.state, 0, state, 0, STATE_BYTES);
+        faceUp = src.faceUp;
+        hash = src.hash;
+        System.arraycopy(src.columnHash, 0, columnHash, 0, 7);
+        deal = src.deal;
+        dirty = ALL_PILES;
+    }
+
+    // Piles changed since the last call
+    int takeDirty() {
+        int d = dirty;
+        dirty = 0;
+        return d;
+    }
+}
@@ -0,0 +1,210 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Persistent store of solver results by deal number. After a 16-byte header the file is
+// an append-only log of RECORD-byte records, each carrying its own deal number, so its
+// size follows the number of deals solved, not how large their numbers are. Opening the
+// file reads the log once into an in-memory index (deal -> record), so a lookup is an
+// index probe plus one positional read. A record that was only partly written when a run
+// stopped is ignored and overwritten by the next append; if a deal is recorded twice the
+// later record wins.
+class KlondikeResults implements Closeable {
+    static final int MAGIC = 0x4b4c5253; // "KLRS"
+    static final int VERSION = 2;
+    static final int HEADER = 16;
+    static final int RECORD = 20; // deal (i64), status, unused, moves (u16), nodes (i32), millis (i32)
+    static final int READ_BUFFER = RECORD << 16;
+
+    static final class Entry {
+        final KlondikeSolver.Status status;
+        final int moves;
+        final int nodes;
+        final int millis;
+
+        Entry(KlondikeSolver.Status status, int moves, int nodes, int millis) {
+            this.status = status;
+            this.moves = moves;
+            this.nodes = nodes;
+            this.millis = millis;
+        }
+
+        @Override
+        public String toString() {
+            return status + " moves=" + moves + " nodes=" + nodes + " time=" + millis + "ms";
+        }
+    }
+
+    private final FileChannel channel;
+    private final DealIndex index = new DealIndex();
+    private int records; // whole records in the file; the next append goes after them
+
+    KlondikeResults(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        if (channel.size() == 0) {
+            header.putInt(MAGIC).putInt(VERSION).putInt(RECORD).putInt(0).flip();
+            channel.write(header, 0);
+        } else {
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER || header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != RECORD) {
+                channel.close();
+                throw new IOException("Not a version " + VERSION + " Klondike results file: " + file);
+            }
+            readIndex();
+        }
+    }
+
+    private void readIndex() throws IOException {
+        long whole = (channel.size() - HEADER) / RECORD;
+        if (whole > Integer.MAX_VALUE) throw new IOException("Results file too large");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER);
+        int statuses = KlondikeSolver.Status.values().length;
+        for (int r = 0; r < whole; ) {
+            buffer.clear();
+            int want = (int) Math.min(READ_BUFFER, (whole - r) * RECORD);
+            buffer.limit(want);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset(r) + buffer.position()) < 0) throw new IOException("Results file truncated");
+            }
+            buffer.flip();
+            for (int end = r + want / RECORD; r < end; r++) {
+                long deal = buffer.getLong(buffer.position());
+                int status = buffer.get(buffer.position() + 8);
+                buffer.position(buffer.position() + RECORD);
+                if (deal < 0 || status < 1 || status > statuses) throw new IOException("Corrupt record " + r + " in results file");
+                index.put(deal, r);
+            }
+        }
+        records = (int) whole;
+    }
+
+    static long offset(int record) {
+        return HEADER + (long) record * RECORD;
+    }
+
+    static void checkDeal(long deal) {
+        if (deal < 0) throw new IllegalArgumentException("Deal numbers are not negative: " + deal);
+    }
+
+    synchronized void put(long deal, KlondikeSolver.Result result) throws IOException {
+        checkDeal(deal);
+        ByteBuffer record = ByteBuffer.allocate(RECORD);
+        record.putLong(deal)
+                .put((byte) (result.status.ordinal() + 1))
+                .put((byte) 0)
+                .putShort((short) Math.min(result.moves.length, 0xffff))
+                .putInt((int) Math.min(result.nodes, Integer.MAX_VALUE))
+                .putInt((int) Math.min(result.millis, Integer.MAX_VALUE))
+                .flip();
+        while (record.hasRemaining()) channel.write(record, offset(records) + record.position());
+        // Indexed only once the whole record is in the file
+        index.put(deal, records++);
+    }
+
+    // Stored result for deal, or null if it has not been solved
+    Entry get(long deal) throws IOException {
+        checkDeal(deal);
+        int r;
+        synchronized (this) {
+            r = index.get(deal);
+        }
+        if (r < 0) return null;
+        ByteBuffer record = ByteBuffer.allocate(RECORD);
+        while (record.hasRemaining()) {
+            if (channel.read(record, offset(r) + record.position()) < 0) throw new IOException("Results file truncated");
+        }
+        record.flip();
+        record.getLong();
+        byte status = record.get();
+        record.get();
+        return new Entry(KlondikeSolver.Status.values()[status - 1], record.getShort() & 0xffff, record.getInt(), record.getInt());
+    }
+
+    boolean contains(long deal) {
+        checkDeal(deal);
+        synchronized (this) {
+            return index.get(deal) >= 0;
+        }
+    }
+
+    // Every recorded deal, ascending
+    synchronized long[] deals() {
+        long[] out = index.keys();
+        Arrays.sort(out);
+        return out;
+    }
+
+    synchronized int size() {
+        return index.size;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Open-addressed deal -> record map; -1 marks a free slot, which is why deals are
+    // never negative
+    static final class DealIndex {
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];
+        private int mask = 1023;
+        int size;
+
+        DealIndex() {
+            Arrays.fill(keys, -1);
+        }
+
+        int get(long deal) {
+            for (int i = LongHashSet.slot(deal, mask); keys[i] != -1; i = (i + 1) & mask) {
+                if (keys[i] == deal) return values[i];
+            }
+            return -1;
+        }
+
+        void put(long deal, int record) {
+            int i = LongHashSet.slot(deal, mask);
+            while (keys[i] != -1 && keys[i] != deal) i = (i + 1) & mask;
+            values[i] = record;
+            if (keys[i] == -1) {
+                keys[i] = deal;
+                if (++size * 2 > keys.length) grow();
+            }
+        }
+
+        long[] keys() {
+            long[] out = new long[size];
+            int n = 0;
+            for (long k : keys) {
+                if (k != -1) out[n++] = k;
+            }
+            return out;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, -1);
+            mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == -1) continue;
+                int j = LongHashSet.slot(oldKeys[i], mask);
+                while (keys[j] != -1) j = (j + 1) & mask;
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+
+// Hint search that does not peek at face-down cards. Each sample deals the hidden cards
+// (face-down tableau cards and the stock) at random among their slots, then plays a fast
+// heuristic rollout after every candidate move on that same deal, so moves are compared
+// on equal luck. Samples are split across a fork/join pool in rounds until the time
+// budget runs out; moves are ranked by the lower end of the Wilson interval of their win
+// rate, then by cards brought home. Rollouts run on per-thread scratch models with
+// make() and a per-thread generator reseeded for each sample, and allocate nothing.
+class KlondikeRollouts {
+    static final int MAX_ROLLOUT_MOVES = 250;
+    static final int SAMPLES_PER_ROUND = 256;
+    static final int SAMPLES_PER_TASK = 16;
+    static final int STALL_SLACK = 8;     // moves allowed beyond one pass through the stock
+    static final int PROGRESS_WEIGHT = 4; // moves weighted this high bring a card into play
+    static final double Z = 1.96; // 95% intervals
+
+    static final class Ranking {
+        final int move;
+        final int wins, plays;
+        final long cardsHome;
+
+        Ranking(int move, int wins, int plays, long cardsHome) {
+            this.move = move;
+            this.wins = wins;
+            this.plays = plays;
+            this.cardsHome = cardsHome;
+        }
+
+        double winRate() { return plays == 0 ? 0 : (double) wins / plays; }
+        double lower() { return wilson(wins, plays, -Z); }
+        double upper() { return wilson(wins, plays, Z); }
+
+        @Override
+        public String toString() {
+            return String.format("%s: won %d/%d (%.0f%%, %.0f-%.0f%%)", ks.describe(move), wins, plays,
+                    100 * winRate(), 100 * lower(), 100 * upper());
+        }
+    }
+
+    // Per-thread working state
+    static final class Scratch {
+        final KlondikeModel sample = new KlondikeModel(0);
+        final KlondikeModel work = new KlondikeModel(0);
+        final KlondikeSolver helper = new KlondikeSolver(); // auto-play
+        final int[] moves = new int[KlondikeModel.MAX_MOVES];
+        final int[] weights = new int[KlondikeModel.MAX_MOVES];
+        final int[] hidden = new int[52];
+        final int[] column = new int[KlondikeModel.CAPACITY[KlondikeModel.TABLEAU]];
+        long random; // SplitMix64 state; seeding it with the sample number makes samples repeatable
+
+        // Uniform in [0, bound)
+        int nextInt(int bound) {
+            random += 0x9e3779b97f4a7c15L;
+            return (int) (((LongHashSet.mix(random) >>> 32) * bound) >>> 32);
+        }
+    }
+
+    static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    final ForkJoinPool pool;
+    long budgetMillis = 1000;
+    BooleanSupplier cancelled; // polled before every sample
+    long rollouts;             // played by the last rank()
+    long seed = System.nanoTime();
+
+    KlondikeRollouts() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    KlondikeRollouts(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Candidate moves from model ranked best first; empty if there are none
+    List<Ranking> rank(KlondikeModel model) {
+        int[] buffer = new int[KlondikeModel.MAX_MOVES];
+        int n = 0, generated = model.generateMoves(buffer, 0);
+        for (int i = 0; i < generated; i++) {
+            if (!KlondikeHints.isPrunable(model, buffer[i])) buffer[n++] = buffer[i];
+        }
+        int[] candidates = Arrays.copyOf(buffer, n);
+        long[] totals = new long[3 * n]; // wins, plays, cards home per move
+        rollouts = 0;
+
+        KlondikeModel root = model.clone();
+        long t0 = System.currentTimeMillis();
+        for (long first = 0; n > 0; first += SAMPLES_PER_ROUND) {
+            long[] round = pool.invoke(new Samples(root, candidates, seed + first, cancelled, 0, SAMPLES_PER_ROUND));
+            for (int i = 0; i < totals.length; i++) totals[i] += round[i];
+            if (System.currentTimeMillis() - t0 >= budgetMillis || (cancelled != null && cancelled.getAsBoolean())) break;
+        }
+
+        List<Ranking> ranked = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            rollouts += totals[3 * i + 1];
+            ranked.add(new Ranking(candidates[i], (int) totals[3 * i], (int) totals[3 * i + 1], totals[3 * i + 2]));
+        }
+        ranked.sort((a, b) -> a.lower() != b.lower() ? Double.compare(b.lower(), a.lower())
+                : Long.compare(b.cardsHome * a.plays, a.cardsHome * b.plays));
+        return ranked;
+    }
+
+    // Samples [from, to) of one round, split until a task holds SAMPLES_PER_TASK. Tasks are
+    // never serialized.
+    @SuppressWarnings("serial")
+    static final class Samples extends RecursiveTask<long[]> {
+        final KlondikeModel root;
+        final int[] candidates;
+        final long seed;
+        final BooleanSupplier cancelled;
+        final int from, to;
+
+        Samples(KlondikeModel root, int[] candidates, long seed, BooleanSupplier cancelled, int from, int to) {
+            this.root = root;
+            this.candidates = candidates;
+            this.seed = seed;
+            this.cancelled = cancelled;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > SAMPLES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                Samples left = new Samples(root, candidates, seed, cancelled, from, mid);
+                left.fork();
+                long[] right = new Samples(root, candidates, seed, cancelled, mid, to).compute();
+                long[] sum = left.join();
+                for (int i = 0; i < sum.length; i++) sum[i] += right[i];
+                return sum;
+            }
+            Scratch s = SCRATCH.get();
+            long[] totals = new long[3 * candidates.length];
+            for (int k = from; k < to; k++) {
+                // A cancelled round stops short; only whole samples are counted
+                if (cancelled != null && cancelled.getAsBoolean()) break;
+                s.random = seed + k;
+                determinize(root, s);
+                for (int i = 0; i < candidates.length; i++) {
+                    s.work.copyFrom(s.sample);
+                    s.work.make(candidates[i]);
+                    if (rollout(s.work, s)) totals[3 * i]++;
+                    totals[3 * i + 1]++;
+                    totals[3 * i + 2] += cardsHome(s.work);
+                }
+            }
+            return totals;
+        }
+    }
+
+    // s.sample = model with its face-down cards dealt again at random among their slots
+    static void determinize(KlondikeModel model, Scratch s) {
+        KlondikeModel m = s.sample;
+        m.copyFrom(model);
+        int hidden = 0;
+        for (int t = KlondikeModel.TABLEAU; t < KlondikeModel.TABLEAU + 7; t++) {
+            for (int i = 0; i < m.size(t) && !m.isFaceUp(m.cardAt(t, i)); i++) s.hidden[hidden++] = m.cardAt(t, i);
+        }
+        for (int i = 0; i < m.size(KlondikeModel.STOCK); i++) s.hidden[hidden++] = m.cardAt(KlondikeModel.STOCK, i);
+        for (int i = hidden - 1; i > 0; i--) {
+            int j = s.nextInt(i + 1), c = s.hidden[i];
+            s.hidden[i] = s.hidden[j];
+            s.hidden[j] = c;
+        }
+
+        // Every hidden card is face down, so refilling the same slots keeps the face-up mask
+        int next = 0;
+        for (int t = KlondikeModel.TABLEAU; t < KlondikeModel.TABLEAU + 7; t++) {
+            int n = m.size(t), down = 0;
+            while (down < n && !m.isFaceUp(m.cardAt(t, down))) down++;
+            if (down == 0) continue;
+            for (int i = n - 1; i >= 0; i--) s.column[i] = m.pop(t);
+            for (int i = 0; i < n; i++) m.push(t, i < down ? s.hidden[next++] : s.column[i]);
+        }
+        int stock = m.size(KlondikeModel.STOCK);
+        for (int i = 0; i < stock; i++) m.pop(KlondikeModel.STOCK);
+        for (int i = 0; i < stock; i++) m.push(KlondikeModel.STOCK, s.hidden[next++]);
+    }
+
+    // Play m out with a weighted random policy that favours turning cards over and
+    // building up; true if it ends won. A rollout is given up as lost once it has gone a
+    // whole pass through the stock without bringing a card into play.
+    static boolean rollout(KlondikeModel m, Scratch s) {
+        int previous = KlondikeModel.NO_MOVE, idle = 0;
+        for (int step = 0; step < MAX_ROLLOUT_MOVES; step++) {
+            if (s.helper.autoPlay(m, 0) > 0) idle = 0;
+            if (m.isWon()) return true;
+            if (idle > m.size(KlondikeModel.STOCK) + m.size(KlondikeModel.WASTE) + STALL_SLACK) return false;
+            int n = KlondikeSolver.generate(m, s.moves, 0);
+            int total = 0;
+            for (int i = 0; i < n; i++) {
+                total += s.weights[i] = KlondikeHints.isReversal(s.moves[i], previous) ? 0 : weight(m, s.moves[i]);
+            }
+            if (total == 0) return false;
+            int r = s.nextInt(total), i = 0;
+            while (r >= s.weights[i]) r -= s.weights[i++];
+            previous = s.moves[i];
+            idle = s.weights[i] >= PROGRESS_WEIGHT ? 0 : idle + 1;
+            m.make(previous);
+        }
+        return false;
+    }
+
+    static int weight(KlondikeModel m, int move) {
+        int type = KlondikeModel.moveType(move);
+        if (type == KlondikeModel.TABLEAU_TO_TABLEAU || type == KlondikeModel.TABLEAU_TO_FOUNDATION) {
+            int from = KlondikeModel.moveFrom(move), below = m.size(from) - KlondikeModel.moveCount(move) - 1;
+            if (below >= 0 && !m.isFaceUp(m.cardAt(from, below))) return 16; // turns a card
+            if (below < 0) return 6;                                          // frees a column
+            return type == KlondikeModel.TABLEAU_TO_FOUNDATION ? 4 : 1;
+        }
+        return switch (type) {
+            case KlondikeModel.WASTE_TO_FOUNDATION -> 8;
+            case KlondikeModel.WASTE_TO_TABLEAU -> 6;
+            default -> 2; // draws and recycles
+        };
+    }
+
+    static int cardsHome(KlondikeModel m) {
+        int n = 0;
+        for (int f = KlondikeModel.FOUNDATION; f < KlondikeModel.FOUNDATION + 4; f++) n += m.size(f);
+        return n;
+    }
+
+    static double wilson(int wins, int plays, double z) {
+        if (plays == 0) return z < 0 ? 0 : 1;
+        double p = (double) wins / plays, z2n = z * z / plays;
+        double centre = p + z2n / 2, spread = z * Math.sqrt(p * (1 - p) / plays + z2n / (4 * plays));
+        return Math.max(0, Math.min(1, (centre + spread) / (1 + z2n)));
+    }
+
+    // Ranks the first moves of deals 0, 1, 2, ... and reports rollout throughput
+    public static void main(String[] args) {
+        int deals = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        KlondikeRollouts rollouts = new KlondikeRollouts();
+        if (args.length > 1) rollouts.budgetMillis = Long.parseLong(args[1]);
+        for (int d = 0; d < deals; d++) {
+            long t0 = System.nanoTime();
+            List<Ranking> ranked = rollouts.rank(new KlondikeModel(d));
+            double seconds = (System.nanoTime() - t0) / 1e9;
+            System.out.printf("deal %d: %d rollouts, %.0f/s%n", d, rollouts.rollouts, rollouts.rollouts / seconds);
+            for (Ranking r : ranked) System.out.println("  " + r);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Versioned binary form of a Klondike game. A position is POSITION bytes: the 13 pile
+// sizes, the 52 cards pile by pile (card id, bit 7 set when face up) and the recycle
+// count, so it can be stored back to back by the million. A saved game adds a header,
+// the deal number and the move journal, and is written to a temporary file that then
+// replaces the old save, so a crash mid-write never leaves a torn file behind.
+class KlondikeSnapshot {
+    static final int MAGIC = 0x4b4c5356; // "KLSV"
+    static final int VERSION = 1;
+    static final int HEADER = 16;        // magic, version, deal
+    static final int POSITION = KlondikeModel.PILES + 52 + 1;
+    static final int FACE_UP = 0x80;
+
+    // Model with every pile empty, copied for each position read
+    private static final KlondikeModel EMPTY = new KlondikeModel(0);
+    static {
+        for (int p = 0; p < KlondikeModel.PILES; p++) {
+            while (EMPTY.size(p) > 0) EMPTY.pop(p);
+        }
+    }
+
+    static final int[] IN_ORDER = {0, 1, 2, 3, 4, 5, 6};
+
+    static void writePosition(KlondikeModel model, ByteBuffer out) {
+        writePosition(model, out, IN_ORDER);
+    }
+
+    // Tableau columns written in the given order; with model.columnOrder() the bytes are
+    // the same for every arrangement of the columns
+    static void writePosition(KlondikeModel model, ByteBuffer out, int[] columns) {
+        for (int p = 0; p < KlondikeModel.PILES; p++) out.put((byte) model.size(pile(p, columns)));
+        for (int p = 0; p < KlondikeModel.PILES; p++) {
+            int pile = pile(p, columns);
+            for (int i = 0; i < model.size(pile); i++) {
+                int c = model.cardAt(pile, i);
+                out.put((byte) (c | (model.isFaceUp(c) ? FACE_UP : 0)));
+            }
+        }
+        out.put((byte) model.recycles());
+    }
+
+    private static int pile(int p, int[] columns) {
+        return p < KlondikeModel.FOUNDATION ? KlondikeModel.TABLEAU + columns[p] : p;
+    }
+
+    static KlondikeModel readPosition(ByteBuffer in) throws IOException {
+        return readPosition(in, EMPTY.clone());
+    }
+
+    // Reads into model, replacing whatever it held
+    static KlondikeModel readPosition(ByteBuffer in, KlondikeModel model) throws IOException {
+        if (in.remaining() < POSITION) throw new IOException("Truncated Klondike position");
+        int[] sizes = new int[KlondikeModel.PILES];
+        int total = 0;
+        for (int p = 0; p < KlondikeModel.PILES; p++) {
+            sizes[p] = in.get();
+            if (sizes[p] < 0 || sizes[p] > KlondikeModel.CAPACITY[p]) throw new IOException("Corrupt pile size in Klondike position");
+            total += sizes[p];
+        }
+        if (total != 52) throw new IOException("Corrupt Klondike position: " + total + " cards");
+
+        model.copyFrom(EMPTY);
+        long seen = 0;
+        for (int p = 0; p < KlondikeModel.PILES; p++) {
+            for (int i = 0; i < sizes[p]; i++) {
+                int b = in.get() & 0xff, c = b & ~FACE_UP;
+                if (c >= 52 || (seen & 1L << c) != 0) throw new IOException("Corrupt card in Klondike position");
+                seen |= 1L << c;
+                model.setFaceUp(c, (b & FACE_UP) != 0);
+                model.push(p, c);
+            }
+        }
+        int recycles = in.get();
+        if (recycles < 0 || recycles >= KlondikeModel.RECYCLE_KEYS.length) throw new IOException("Corrupt recycle count in Klondike position");
+        model.setRecycles(recycles);
+        return model;
+    }
+
+    static void save(Path file, KlondikeModel model, MoveJournal journal) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + POSITION + journal.bytes());
+        buf.putInt(MAGIC).putInt(VERSION).putLong(model.deal);
+        writePosition(model, buf);
+        journal.write(buf);
+        buf.flip();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Saved position; the journal, if given, is replaced by the saved history, which must
+    // replay to that position
+    static KlondikeModel load(Path file, MoveJournal journal) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = ByteBuffer.allocate((int) Math.min(ch.size(), Integer.MAX_VALUE));
+            while (buf.hasRemaining() && ch.read(buf) >= 0) {}
+        }
+        buf.flip();
+        if (buf.remaining() < HEADER || buf.getInt() != MAGIC) throw new IOException("Not a Klondike save file: " + file);
+        int version = buf.getInt();
+        if (version != VERSION) throw new IOException("Unsupported Klondike save version " + version);
+        long deal = buf.getLong();
+        KlondikeModel model = readPosition(buf);
+        model.deal = deal;
+        if (journal != null) {
+            try {
+                journal.read(buf);
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Corrupt move journal in " + file);
+            }
+            if (!journal.matches(model)) {
+                journal.clear();
+                throw new IOException("Move journal does not match the saved position in " + file);
+            }
+        }
+        return model;
+    }
+}
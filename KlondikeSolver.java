@@ -0,0 +1,279 @@
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+// Complete solver for a KlondikeModel deal: BestFirstSearch over the compact state,
+// which the SearchState adapter below exposes as a GameState. Priority is g + weight * h
+// with the admissible h = cards not yet on the foundations, refined by the terms and
+// move-type bonuses of a KlondikeWeights table (by default: ties broken by fewer
+// face-down cards). Safe foundation moves are played automatically after every move, and
+// pointless moves are never generated (see generate). Recycling is only considered once
+// the stock is empty, as in standard Klondike. Exhausting the search space without
+// reaching a win proves the deal unwinnable; the winning line found is not necessarily
+// the shortest.
+class KlondikeSolver {
+    enum Status { WON, UNWINNABLE, GAVE_UP }
+
+    static final class Result {
+        final Status status;
+        final int[] moves; // full winning line including automatic moves; empty otherwise
+        final long nodes;
+        final long millis;
+
+        Result(Status status, int[] moves, long nodes, long millis) {
+            this.status = status;
+            this.moves = moves;
+            this.nodes = nodes;
+            this.millis = millis;
+        }
+
+        @Override
+        public String toString() {
+            return status + " moves=" + moves.length + " nodes=" + nodes + " time=" + millis + "ms";
+        }
+    }
+
+    static final int NONE = -1;
+
+    long maxNodes = 2_000_000;
+    long maxMillis = 10_000;
+    KlondikeWeights weights = KlondikeWeights.defaults();
+    BooleanSupplier cancelled; // polled during the search; true makes it give up
+
+    private BestFirstSearch<SearchState> search;
+    final int[] autoMoves = new int[64];
+    private final int[] autoTokens = new int[64];
+
+    KlondikeSolver() {}
+
+    KlondikeSolver(long maxNodes, long maxMillis) {
+        this.maxNodes = maxNodes;
+        this.maxMillis = maxMillis;
+    }
+
+    // The model as a GameState: every move is followed by the safe foundation moves it
+    // allows, and unmake() takes those back too. A move's cost counts them as well, so g
+    // stays the length of the full line.
+    final class SearchState implements GameState {
+        final KlondikeModel model;
+        private int[] autoCounts = new int[64];
+        private int depth;
+        private int autoTop; // autoMoves/autoTokens in use along the current line
+
+        SearchState(KlondikeModel model) {
+            this.model = model;
+            autoTop = autoPlay(model, 0);
+        }
+
+        @Override
+        public long hash() {
+            return model.getStateHash();
+        }
+
+        @Override
+        public boolean isGoal() {
+            return model.isWon();
+        }
+
+        @Override
+        public int make(int move) {
+            int token = model.make(move);
+            int autos = autoPlay(model, autoTop);
+            autoTop += autos;
+            if (depth == autoCounts.length) autoCounts = Arrays.copyOf(autoCounts, depth * 2);
+            autoCounts[depth++] = autos;
+            return token;
+        }
+
+        @Override
+        public void unmake(int move, int token) {
+            int autos = autoCounts[--depth];
+            for (int k = autoTop - 1; k >= autoTop - autos; k--) model.unmake(autoMoves[k], autoTokens[k]);
+            autoTop -= autos;
+            model.unmake(move, token);
+        }
+
+        @Override
+        public int cost(int move, int token) {
+            return 1 + autoCounts[depth - 1];
+        }
+    }
+
+    Result solve(KlondikeModel start) {
+        if (search == null) {
+            search = new BestFirstSearch<>((s, out) -> generate(s.model, out, 0), heuristic());
+            search.maxMoves = KlondikeModel.MAX_MOVES;
+        }
+        search.maxNodes = maxNodes;
+        search.maxMillis = maxMillis;
+        search.cancelled = cancelled;
+
+        KlondikeModel root = start.clone();
+        SearchResult r = search.solve(new SearchState(root.clone()));
+        Status status = switch (r.status) {
+            case SOLVED -> Status.WON;
+            case EXHAUSTED -> Status.UNWINNABLE;
+            case GAVE_UP -> Status.GAVE_UP;
+        };
+        int[] moves = status == Status.WON ? line(root, r.moves) : new int[0];
+        return new Result(status, moves, search.nodeCount(), r.millis);
+    }
+
+    // Cards not yet home, with priority() for the ordering
+    Heuristic<SearchState> heuristic() {
+        return new Heuristic<>() {
+            @Override
+            public int estimate(SearchState s) {
+                return 52 - onFoundation(s.model);
+            }
+
+            @Override
+            public long priority(SearchState s, int g, int move) {
+                return KlondikeSolver.this.priority(s.model, g, move);
+            }
+        };
+    }
+
+    // Priority of the position move led to; see KlondikeWeights
+    long priority(KlondikeModel m, int g, int move) {
+        int empty = 0;
+        for (int t = KlondikeModel.TABLEAU; t < KlondikeModel.TABLEAU + 7; t++) {
+            if (m.size(t) == 0) empty++;
+        }
+        KlondikeWeights w = weights;
+        return (long) (g + w.home * (52 - onFoundation(m))) * 64 + w.faceDown * faceDown(m)
+                - w.emptyColumn * empty - w.moveBonus(move);
+    }
+
+    static int onFoundation(KlondikeModel m) {
+        int n = 0;
+        for (int f = KlondikeModel.FOUNDATION; f < KlondikeModel.FOUNDATION + 4; f++) n += m.size(f);
+        return n;
+    }
+
+    static int faceDown(KlondikeModel m) {
+        int n = 0;
+        for (int t = 0; t < 7; t++) {
+            for (int i = 0; i < m.size(t); i++) {
+                if (!m.isFaceUp(m.cardAt(t, i))) n++;
+                else break;
+            }
+        }
+        return n;
+    }
+
+    // Winning line from the root through the chosen moves, with automatic moves spelled out
+    int[] line(KlondikeModel root, int[] chosen) {
+        int[] out = new int[chosen.length + 52];
+        KlondikeModel work = root.clone();
+        int k = autoPlay(work, 0);
+        System.arraycopy(autoMoves, 0, out, 0, k);
+        for (int move : chosen) {
+            work.make(move);
+            out[k++] = move;
+            int autos = autoPlay(work, 0);
+            System.arraycopy(autoMoves, 0, out, k, autos);
+            k += autos;
+        }
+        return Arrays.copyOf(out, k);
+    }
+
+    // Legal moves with dominated ones left out. Recycling is only allowed with an empty
+    // stock, and a recycle is folded together with the draws after it: RECYCLE_DRAW(k)
+    // recycles and turns the next pass up to its k-th card, kept only when that card can
+    // be played. Tableau moves commute with stock turns, so drawing to a card that is
+    // not playable yet loses nothing, and redrawing the whole waste only burns a recycle.
+    static int generate(KlondikeModel m, int[] out, int n) {
+        int end = m.generateMoves(out, n);
+        int j = n;
+        for (int i = n; i < end; i++) {
+            int move = out[i];
+            if (isPointless(m, move)) continue;
+            if (move == KlondikeModel.RECYCLE_MOVE) {
+                if (m.size(KlondikeModel.STOCK) > 0) continue;
+                // The recycled waste comes back bottom card first
+                int waste = m.size(KlondikeModel.WASTE);
+                for (int k = 1; k < waste; k++) {
+                    if (isPlayable(m, m.cardAt(KlondikeModel.WASTE, k - 1))) {
+                        out[j++] = KlondikeModel.move(KlondikeModel.RECYCLE_DRAW, KlondikeModel.WASTE, KlondikeModel.STOCK, k);
+                    }
+                }
+                continue;
+            }
+            out[j++] = move;
+        }
+        return j;
+    }
+
+    // A move that cannot help: a whole column moved onto an empty one
+    static boolean isPointless(KlondikeModel m, int move) {
+        if (KlondikeModel.moveType(move) != KlondikeModel.TABLEAU_TO_TABLEAU) return false;
+        return KlondikeModel.moveCount(move) == m.size(KlondikeModel.moveFrom(move)) && m.size(KlondikeModel.moveTo(move)) == 0;
+    }
+
+    // Could card go anywhere if it were on top of the waste
+    static boolean isPlayable(KlondikeModel m, int card) {
+        if (m.canPlaceOnFoundation(card, KlondikeModel.FOUNDATION + KlondikeModel.suit(card))) return true;
+        for (int t = 0; t < 7; t++) {
+            if (m.canPlaceOnTableau(card, t)) return true;
+        }
+        return false;
+    }
+
+    // Play foundation moves that can never hurt (see isSafe). Returns how many moves were played; they are left
+    // in autoMoves/autoTokens from index start.
+    int autoPlay(KlondikeModel m, int start) {
+        int k = start;
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (int p = 0; p <= KlondikeModel.WASTE; p++) {
+                if (p >= KlondikeModel.FOUNDATION && p < KlondikeModel.WASTE) continue;
+                int c = m.top(p);
+                if (c < 0 || !m.isFaceUp(c)) continue;
+                int f = KlondikeModel.FOUNDATION + KlondikeModel.suit(c);
+                if (m.canPlaceOnFoundation(c, f) && isSafe(m, c)) {
+                    int type = p == KlondikeModel.WASTE ? KlondikeModel.WASTE_TO_FOUNDATION : KlondikeModel.TABLEAU_TO_FOUNDATION;
+                    int mv = KlondikeModel.move(type, p, f, 1);
+                    autoTokens[k] = m.makeTransfer(p, f, 1);
+                    autoMoves[k++] = mv;
+                    progress = true;
+                }
+            }
+        }
+        return k - start;
+    }
+
+    // A card may go up for good when nothing left could need it as a parent. That holds
+    // for aces and twos, and when both opposite-colour foundations are within one rank.
+    // It also holds within two ranks if the other same-colour foundation is within
+    // three: the opposite-colour card one rank lower can then always go to its
+    // foundation itself, and so can anything stacked on it.
+    static boolean isSafe(KlondikeModel m, int card) {
+        int rank = KlondikeModel.rank(card);
+        if (rank <= 2) return true;
+        int a = KlondikeModel.isRed(card) ? 2 : 0; // first opposite-colour suit
+        int lowest = Math.min(m.size(KlondikeModel.FOUNDATION + a), m.size(KlondikeModel.FOUNDATION + a + 1));
+        int sameColour = m.size(KlondikeModel.FOUNDATION + (KlondikeModel.suit(card) ^ 1));
+        return rank <= lowest + 1 || (rank <= lowest + 2 && rank <= sameColour + 3);
+    }
+
+    void undoAutoPlay(KlondikeModel m, int count) {
+        for (int k = count - 1; k >= 0; k--) {
+            m.unmake(autoMoves[k], autoTokens[k]);
+        }
+    }
+
+    // Solves deals 0, 1, 2, ... and prints one line per deal
+    public static void main(String[] args) {
+        int deals = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        KlondikeSolver solver = new KlondikeSolver();
+        int won = 0, lost = 0;
+        for (int d = 0; d < deals; d++) {
+            Result r = solver.solve(new KlondikeModel(d));
+            if (r.status == Status.WON) won++;
+            if (r.status == Status.UNWINNABLE) lost++;
+            System.out.println("deal " + d + ": " + r);
+        }
+        System.out.println("won=" + won + " unwinnable=" + lost + " unknown=" + (deals - won - lost));
+    }
+}
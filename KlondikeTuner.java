@@ -0,0 +1,134 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Headless tuner for KlondikeWeights. The training set is the deals a KlondikeBatch run
+// proved winnable; the cost of a weight table is the total nodes KlondikeSolver needs to
+// solve them again, with a deal it fails on charged the full node limit. Deals are solved
+// in parallel on all cores. Parameters are adjusted one at a time (coordinate descent):
+// a step up or down is kept when it lowers the cost, and steps are halved once a full
+// pass finds nothing better.
+//
+//   java KlondikeTuner results.bin klondike-weights.properties [deals] [maxNodes] [threads]
+class KlondikeTuner {
+    final long[] deals;
+    final long maxNodes;
+    final ExecutorService pool;
+    final int threads;
+    final ThreadLocal<KlondikeSolver> solvers;
+
+    KlondikeTuner(long[] deals, long maxNodes, int threads) {
+        this.deals = deals;
+        this.maxNodes = maxNodes;
+        this.threads = threads;
+        pool = Executors.newFixedThreadPool(threads);
+        solvers = ThreadLocal.withInitial(() -> new KlondikeSolver(maxNodes, Long.MAX_VALUE));
+    }
+
+    // Total nodes to solve every training deal with weights w
+    long cost(KlondikeWeights w) throws InterruptedException, ExecutionException {
+        List<Future<Long>> parts = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            parts.add(pool.submit(() -> {
+                KlondikeSolver solver = solvers.get();
+                solver.weights = w;
+                long nodes = 0;
+                for (int i = first; i < deals.length; i += threads) {
+                    KlondikeSolver.Result r = solver.solve(new KlondikeModel(deals[i]));
+                    nodes += r.status == KlondikeSolver.Status.WON ? r.nodes : maxNodes;
+                }
+                return nodes;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> part : parts) total += part.get();
+        return total;
+    }
+
+    KlondikeWeights tune(KlondikeWeights start) throws InterruptedException, ExecutionException {
+        KlondikeWeights best = start.copy();
+        long bestCost = cost(best);
+        System.out.println("start: cost=" + bestCost + " " + best);
+        int[] step = new int[best.parameters()];
+        for (int i = 0; i < step.length; i++) step[i] = i < 2 ? 1 : 32;
+
+        boolean stepsLeft = true;
+        while (stepsLeft) {
+            boolean improved = false;
+            for (int i = 0; i < step.length; i++) {
+                if (step[i] == 0) continue;
+                for (int sign = 1; sign >= -1; sign -= 2) {
+                    KlondikeWeights w = best.copy();
+                    w.set(i, w.get(i) + sign * step[i]);
+                    if (w.home < 1 || w.faceDown < 0) continue;
+                    long c = cost(w);
+                    if (c < bestCost) {
+                        best = w;
+                        bestCost = c;
+                        improved = true;
+                        System.out.println("cost=" + bestCost + " " + best);
+                        break;
+                    }
+                }
+            }
+            if (!improved) {
+                stepsLeft = false;
+                for (int i = 0; i < step.length; i++) {
+                    step[i] /= 2;
+                    if (step[i] > 0) stepsLeft = true;
+                }
+            }
+        }
+        System.out.println("done: cost=" + bestCost + " " + best);
+        return best;
+    }
+
+    // The first count deals the results file records as won
+    static long[] trainingDeals(KlondikeResults results, int count) throws IOException {
+        long[] deals = new long[count];
+        int n = 0;
+        for (long deal : results.deals()) {
+            if (n == count) break;
+            if (results.get(deal).status == KlondikeSolver.Status.WON) deals[n++] = deal;
+        }
+        return Arrays.copyOf(deals, n);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("usage: KlondikeTuner <results file> <weights file> [deals] [maxNodes] [threads]");
+            return;
+        }
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        long maxNodes = args.length > 3 ? Long.parseLong(args[3]) : 300_000;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        long[] deals;
+        try (KlondikeResults results = new KlondikeResults(Paths.get(args[0]))) {
+            deals = trainingDeals(results, count);
+        }
+        if (deals.length == 0) {
+            System.out.println("No won deals in " + args[0] + "; run KlondikeBatch first");
+            return;
+        }
+        Path out = Paths.get(args[1]);
+        KlondikeWeights start = Files.exists(out) ? KlondikeWeights.load(out) : new KlondikeWeights();
+
+        KlondikeTuner tuner = new KlondikeTuner(deals, maxNodes, threads);
+        try {
+            KlondikeWeights best = tuner.tune(start);
+            best.save(out, "KlondikeTuner: " + deals.length + " deals, maxNodes " + maxNodes);
+            System.out.println("saved " + out);
+        } finally {
+            tuner.pool.shutdown();
+        }
+    }
+}
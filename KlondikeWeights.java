@@ -0,0 +1,122 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+// Weights of KlondikeSolver's node priority, kept out of the code so they can be tuned
+// offline (see KlondikeTuner) and loaded from a properties file. A child's priority is
+//   (g + home * cardsNotHome) * 64 + faceDown * faceDownCards - emptyColumn * emptyColumns
+//       - move.<type> (bonus for the kind of move that produced it)
+// and lower is expanded first. The defaults are the hand-picked weights the solver had
+// before: home 3, one point per face-down card, nothing else.
+class KlondikeWeights {
+    static final String[] MOVE_NAMES = {"none", "wasteToFoundation", "wasteToTableau", "tableauToFoundation",
+            "tableauToTableau", "draw", "recycle", "recycleDraw"};
+    static final String FILE_PROPERTY = "klondike.weights";
+    static final Path DEFAULT_FILE = Paths.get("klondike-weights.properties");
+
+    int home = 3;
+    int faceDown = 1;
+    int emptyColumn = 0;
+    final int[] move = new int[MOVE_NAMES.length];
+
+    private static KlondikeWeights defaults;
+
+    // Weights from the file named by -Dklondike.weights, else klondike-weights.properties
+    // in the working directory, else the built-in ones; loaded once
+    static synchronized KlondikeWeights defaults() {
+        if (defaults == null) {
+            String name = System.getProperty(FILE_PROPERTY);
+            Path file = name != null ? Paths.get(name) : DEFAULT_FILE;
+            defaults = new KlondikeWeights();
+            if (Files.exists(file)) {
+                try {
+                    defaults = load(file);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Using built-in solver weights: " + e.getMessage());
+                }
+            }
+        }
+        return defaults;
+    }
+
+    int moveBonus(int m) {
+        return move[KlondikeModel.moveType(m)];
+    }
+
+    KlondikeWeights copy() {
+        KlondikeWeights w = new KlondikeWeights();
+        w.home = home;
+        w.faceDown = faceDown;
+        w.emptyColumn = emptyColumn;
+        System.arraycopy(move, 0, w.move, 0, move.length);
+        return w;
+    }
+
+    // Tunable parameters in a fixed order, for the tuner
+    int parameters() {
+        return 3 + move.length - 1;
+    }
+
+    int get(int i) {
+        return switch (i) {
+            case 0 -> home;
+            case 1 -> faceDown;
+            case 2 -> emptyColumn;
+            default -> move[i - 2];
+        };
+    }
+
+    void set(int i, int value) {
+        switch (i) {
+            case 0 -> home = value;
+            case 1 -> faceDown = value;
+            case 2 -> emptyColumn = value;
+            default -> move[i - 2] = value;
+        }
+    }
+
+    String name(int i) {
+        return switch (i) {
+            case 0 -> "home";
+            case 1 -> "faceDown";
+            case 2 -> "emptyColumn";
+            default -> "move." + MOVE_NAMES[i - 2];
+        };
+    }
+
+    static KlondikeWeights load(Path file) throws IOException {
+        Properties p = new Properties();
+        try (Reader in = Files.newBufferedReader(file)) {
+            p.load(in);
+        }
+        KlondikeWeights w = new KlondikeWeights();
+        for (int i = 0; i < w.parameters(); i++) {
+            String value = p.getProperty(w.name(i));
+            if (value != null) w.set(i, Integer.parseInt(value.trim()));
+        }
+        if (w.home < 1) throw new IllegalArgumentException("home must be at least 1 in " + file);
+        return w;
+    }
+
+    void save(Path file, String comment) throws IOException {
+        Properties p = new Properties();
+        for (int i = 0; i < parameters(); i++) p.setProperty(name(i), String.valueOf(get(i)));
+        try (Writer out = Files.newBufferedWriter(file)) {
+            p.store(out, comment);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < parameters(); i++) {
+            if (i > 0) s.append(' ');
+            s.append(name(i)).append('=').append(get(i));
+        }
+        return s.toString();
+    }
+}
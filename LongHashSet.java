@@ -0,0 +1,82 @@
+import java.util.Arrays;
+
+// Open-addressed set of primitive longs (linear probing, power-of-two table).
+// Used for visited sets keyed by 64-bit state hashes; zero is tracked separately.
+class LongHashSet {
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+
+    LongHashSet() {
+        this(1024);
+    }
+
+    LongHashSet(int expected) {
+        int cap = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        table = new long[cap];
+        mask = cap - 1;
+    }
+
+    static int slot(long v, int mask) {
+        return (int) ((v * 0x9e3779b97f4a7c15L) >>> 32) & mask;
+    }
+
+    // SplitMix64 finaliser: spreads every input bit over the whole result. The games use
+    // it for Zobrist keys, position hashes and seeded generation.
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // Returns true if v was not present before
+    boolean add(long v) {
+        if (v == 0) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int i = slot(v, mask);
+        while (table[i] != 0) {
+            if (table[i] == v) return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = v;
+        if (++size * 2 > table.length) grow();
+        return true;
+    }
+
+    boolean contains(long v) {
+        if (v == 0) return hasZero;
+        int i = slot(v, mask);
+        while (table[i] != 0) {
+            if (table[i] == v) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+        hasZero = false;
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        mask = table.length - 1;
+        for (long v : old) {
+            if (v == 0) continue;
+            int i = slot(v, mask);
+            while (table[i] != 0) i = (i + 1) & mask;
+            table[i] = v;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+import java.util.Arrays;
+
+// Minimal binary min-heap of (priority, node) packed into longs
+final class LongHeap {
+    private long[] heap = new long[1024];
+    private int size;
+
+    boolean isEmpty() { return size == 0; }
+    int size() { return size; }
+
+    void push(long priority, int node) {
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+        long v = priority << 32 | node;
+        int i = size++;
+        while (i > 0) {
+            int p = (i - 1) >> 1;
+            if (heap[p] <= v) break;
+            heap[i] = heap[p];
+            i = p;
+        }
+        heap[i] = v;
+    }
+
+    int pop() {
+        return (int) popEntry();
+    }
+
+    // Smallest (priority << 32 | node) entry
+    long popEntry() {
+        long top = heap[0];
+        long v = heap[--size];
+        int i = 0;
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= size) break;
+            if (c + 1 < size && heap[c + 1] < heap[c]) c++;
+            if (heap[c] >= v) break;
+            heap[i] = heap[c];
+            i = c;
+        }
+        heap[i] = v;
+        return top;
+    }
+}
@@ -0,0 +1,433 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Minesweeper deduction/probability engine. The frontier (hidden cells next to revealed
+// numbers) is split into independent constraint components; each component is normalised
+// to a canonical signature so recurring patterns, translated or reflected, are solved once
+// and then served from a bounded LRU cache.
+class MineSolver {
+    static final int HIDDEN = -1;
+    static final int MAX_VARS = 48; // larger components are left undecided
+
+    // Enumeration result for one canonical component
+    static final class Solution {
+        final long count;        // number of consistent mine assignments
+        final long[] mineCounts; // per canonical variable: assignments in which it is a mine
+        final long nodes;        // search nodes the enumeration took
+
+        Solution(long count, long[] mineCounts, long nodes) {
+            this.count = count;
+            this.mineCounts = mineCounts;
+            this.nodes = nodes;
+        }
+    }
+
+    static final class Signature {
+        final int[] data;
+        final int hash;
+
+        Signature(int[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Signature && Arrays.equals(data, ((Signature) o).data);
+        }
+    }
+
+    // Result of analysing a whole board
+    static final class Analysis {
+        final List<Integer> safe = new ArrayList<>();
+        final List<Integer> mines = new ArrayList<>();
+        final double[] probability; // NaN for cells outside the frontier
+        boolean complete = true;    // false if a component was skipped: too large or out of maxNodes
+
+        Analysis(int cells) {
+            probability = new double[cells];
+            Arrays.fill(probability, Double.NaN);
+        }
+    }
+
+    final int cacheSize;
+    long maxNodes = Long.MAX_VALUE; // search nodes one analyze() may spend enumerating
+    long hits = 0, misses = 0;
+    private long nodesLeft;
+    private final LinkedHashMap<Signature, Solution> cache;
+
+    // Scratch reused by every component, grown as needed, so canonicalising allocates
+    // only the signature that keys the cache
+    private int[] varIndex = new int[0];  // cell -> variable number under the current order, or -1
+    private int[] consMark = new int[0];  // cell -> last component that listed it as a constraint
+    private int component;
+    private int[] vars = new int[MAX_VARS], varOrder = new int[MAX_VARS], bestOrder = new int[MAX_VARS];
+    private int[] cons = new int[16], consOrder = new int[16];
+    private long[] keyed = new long[16];
+    private int[] sig = new int[16], bestSig = new int[16];
+    private int[] edge = new int[8];
+
+    MineSolver(int cacheSize) {
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(cacheSize * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Signature, Solution> eldest) {
+                return size() > MineSolver.this.cacheSize;
+            }
+        };
+    }
+
+    // cells[i] is HIDDEN or the revealed neighbour count of cell i
+    Analysis analyze(MineTopology topo, int[] cells) {
+        int n = topo.size();
+        int[] offsets = topo.offsets, neighbours = topo.neighbours;
+        Analysis result = new Analysis(n);
+        nodesLeft = maxNodes;
+
+        // Union-find over frontier variables, joined through shared constraints
+        int[] parent = new int[n];
+        boolean[] frontier = new boolean[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+        for (int i = 0; i < n; i++) {
+            if (cells[i] == HIDDEN) continue;
+            int first = -1;
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                int j = neighbours[k];
+                if (cells[j] != HIDDEN) continue;
+                frontier[j] = true;
+                if (first == -1) first = j;
+                else parent[find(parent, j)] = find(parent, first);
+            }
+        }
+
+        Map<Integer, List<Integer>> components = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (frontier[i]) components.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(i);
+        }
+
+        if (varIndex.length < n) {
+            varIndex = new int[n];
+            Arrays.fill(varIndex, -1);
+            consMark = new int[n];
+            component = 0;
+        }
+        for (List<Integer> vars : components.values()) {
+            if (vars.size() > MAX_VARS) {
+                result.complete = false;
+                continue;
+            }
+            solveComponent(topo, cells, vars, result);
+        }
+        return result;
+    }
+
+    static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    void solveComponent(MineTopology topo, int[] cells, List<Integer> varList, Analysis result) {
+        int[] offsets = topo.offsets, neighbours = topo.neighbours;
+        int nv = varList.size();
+        for (int i = 0; i < nv; i++) vars[i] = varList.get(i);
+
+        // Constraints: revealed cells touching this component
+        int nc = 0;
+        component++;
+        for (int i = 0; i < nv; i++) {
+            int v = vars[i];
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                int j = neighbours[k];
+                if (cells[j] != HIDDEN && consMark[j] != component) {
+                    consMark[j] = component;
+                    if (nc == cons.length) cons = Arrays.copyOf(cons, nc * 2);
+                    cons[nc++] = j;
+                }
+            }
+        }
+        if (consOrder.length < nc) consOrder = new int[cons.length];
+
+        // Try the 8 symmetries of the display grid; keep the lexicographically smallest
+        // encoding. The encoding is structural, so it stays exact on any topology; the
+        // symmetries only decide how often equivalent patterns meet in the cache.
+        int bestLength = -1;
+        for (int t = 0; t < 8; t++) {
+            order(vars, nv, varOrder, topo.cols, t);
+            order(cons, nc, consOrder, topo.cols, t);
+            int length = encode(topo, cells, nv, nc);
+            if (bestLength < 0 || compare(sig, length, bestSig, bestLength) < 0) {
+                int[] swap = bestSig;
+                bestSig = sig;
+                sig = swap;
+                swap = bestOrder;
+                bestOrder = varOrder;
+                varOrder = swap;
+                bestLength = length;
+            }
+        }
+        for (int i = 0; i < nv; i++) varIndex[vars[i]] = -1;
+        int[] best = Arrays.copyOf(bestSig, bestLength);
+
+        Signature key = new Signature(best);
+        Solution sol = cache.get(key);
+        if (sol != null) {
+            hits++;
+        } else {
+            misses++;
+            sol = enumerate(best, nodesLeft);
+            if (sol == null) {
+                // Out of budget: leave the component undecided and uncached
+                nodesLeft = 0;
+                result.complete = false;
+                return;
+            }
+            nodesLeft -= sol.nodes;
+            cache.put(key, sol);
+        }
+        if (sol.count == 0) return;
+
+        for (int k = 0; k < nv; k++) {
+            int cell = bestOrder[k];
+            long m = sol.mineCounts[k];
+            result.probability[cell] = (double) m / sol.count;
+            if (m == 0) result.safe.add(cell);
+            else if (m == sol.count) result.mines.add(cell);
+        }
+    }
+
+    // out[0..n) = cellIdx[0..n) sorted by their coordinates under symmetry t
+    void order(int[] cellIdx, int n, int[] out, int cols, int t) {
+        if (keyed.length < n) keyed = new long[cellIdx.length];
+        for (int i = 0; i < n; i++) {
+            int r = cellIdx[i] / cols, c = cellIdx[i] % cols;
+            int a = (t & 1) != 0 ? -r : r;
+            int b = (t & 2) != 0 ? -c : c;
+            if ((t & 4) != 0) { int tmp = a; a = b; b = tmp; }
+            // Translation does not change the order, so raw coordinates suffice
+            keyed[i] = ((long) (a + (1 << 20)) << 42) | ((long) (b + (1 << 20)) << 20) | i;
+        }
+        Arrays.sort(keyed, 0, n);
+        for (int i = 0; i < n; i++) out[i] = cellIdx[(int) (keyed[i] & 0xfffff)];
+    }
+
+    // Structural encoding of the component in varOrder / consOrder, written to sig:
+    // [nv, nc, (value, k, var indices...) per constraint]. Returns its length.
+    int encode(MineTopology topo, int[] cells, int nv, int nc) {
+        int[] offsets = topo.offsets, neighbours = topo.neighbours;
+        for (int i = 0; i < nv; i++) varIndex[varOrder[i]] = i;
+        int size = 2;
+        for (int i = 0; i < nc; i++) size += 2 + offsets[consOrder[i] + 1] - offsets[consOrder[i]];
+        if (sig.length < size) sig = new int[size];
+        int p = 0;
+        sig[p++] = nv;
+        sig[p++] = nc;
+        for (int i = 0; i < nc; i++) {
+            int con = consOrder[i];
+            if (edge.length < offsets[con + 1] - offsets[con]) edge = new int[offsets[con + 1] - offsets[con]];
+            int k = 0;
+            for (int e = offsets[con]; e < offsets[con + 1]; e++) {
+                int v = varIndex[neighbours[e]];
+                if (v >= 0) edge[k++] = v;
+            }
+            Arrays.sort(edge, 0, k);
+            sig[p++] = cells[con];
+            sig[p++] = k;
+            for (int j = 0; j < k; j++) sig[p++] = edge[j];
+        }
+        return p;
+    }
+
+    static int compare(int[] a, int aLength, int[] b, int bLength) {
+        int n = Math.min(aLength, bLength);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) return Integer.compare(a[i], b[i]);
+        }
+        return Integer.compare(aLength, bLength);
+    }
+
+    // Every consistent assignment of the canonical variables of a signature, through
+    // DepthFirstSearch over a ComponentState
+    static Solution enumerate(int[] sig) {
+        return enumerate(sig, Long.MAX_VALUE);
+    }
+
+    // As above, or null if it would take more than maxNodes search nodes
+    static Solution enumerate(int[] sig, long maxNodes) {
+        ComponentState state = new ComponentState(sig);
+        long[] mineCounts = new long[state.vars()];
+        DepthFirstSearch<ComponentState> dfs = new DepthFirstSearch<>(ComponentState::generate);
+        dfs.maxMoves = 2;
+        dfs.maxNodes = maxNodes;
+        long count = dfs.enumerate(state, s -> {
+            for (long bits = s.mines; bits != 0; bits &= bits - 1) mineCounts[Long.numberOfTrailingZeros(bits)]++;
+        });
+        if (dfs.stopped) return null;
+        return new Solution(count, mineCounts, dfs.nodes);
+    }
+
+    // Partial mine assignment of a component as a GameState. Variables are assigned in
+    // order; a move is 0 (safe) or 1 (mine) for the next one, and only moves that keep
+    // every constraint satisfiable are generated.
+    static final class ComponentState implements GameState {
+        private final int[][] touch;  // constraints of each variable
+        private final int[] need;     // mines each constraint still needs
+        private final int[] left;     // unassigned variables each constraint still has
+        long mines;                   // bit v: variable v is a mine
+        int assigned;
+
+        ComponentState(int[] sig) {
+            int nv = sig[0], nc = sig[1];
+            need = new int[nc];
+            left = new int[nc];
+            List<List<Integer>> varCons = new ArrayList<>();
+            for (int v = 0; v < nv; v++) varCons.add(new ArrayList<>());
+            int p = 2;
+            for (int c = 0; c < nc; c++) {
+                need[c] = sig[p++];
+                left[c] = sig[p++];
+                for (int i = 0; i < left[c]; i++) varCons.get(sig[p++]).add(c);
+            }
+            touch = new int[nv][];
+            for (int v = 0; v < nv; v++) touch[v] = varCons.get(v).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        int vars() {
+            return touch.length;
+        }
+
+        static int generate(ComponentState s, int[] out) {
+            if (s.assigned == s.touch.length) return 0;
+            int n = 0;
+            for (int val = 0; val <= 1; val++) {
+                boolean ok = true;
+                for (int c : s.touch[s.assigned]) {
+                    int need = s.need[c] - val;
+                    if (need < 0 || need > s.left[c] - 1) ok = false;
+                }
+                if (ok) out[n++] = val;
+            }
+            return n;
+        }
+
+        @Override
+        public long hash() {
+            return mines | (long) assigned << MAX_VARS;
+        }
+
+        @Override
+        public boolean isGoal() {
+            return assigned == touch.length;
+        }
+
+        @Override
+        public int make(int val) {
+            for (int c : touch[assigned]) {
+                need[c] -= val;
+                left[c]--;
+            }
+            mines |= (long) val << assigned++;
+            return 0;
+        }
+
+        @Override
+        public void unmake(int val, int token) {
+            mines &= ~(1L << --assigned);
+            for (int c : touch[assigned]) {
+                need[c] += val;
+                left[c]++;
+            }
+        }
+    }
+
+    // --- Headless simulation: plays random boards using only deductions and best guesses ---
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        String shape = args.length > 2 ? args[2] : "square";
+        MineTopology topo = switch (shape) {
+            case "torus" -> MineTopology.torus(9, 9);
+            case "hex" -> MineTopology.hex(9, 9);
+            default -> MineTopology.square(9, 9);
+        };
+        int mineCount = 15;
+        MineSolver solver = new MineSolver(4096);
+        Random random = new Random(seed);
+        int wins = 0;
+        long start = System.nanoTime();
+        for (int g = 0; g < games; g++) {
+            if (simulate(solver, random, topo, mineCount)) wins++;
+        }
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%s games=%d wins=%d time=%dms cache hits=%d misses=%d%n",
+                topo.name, games, wins, ms, solver.hits, solver.misses);
+    }
+
+    static boolean simulate(MineSolver solver, Random random, MineTopology topo, int mineCount) {
+        int n = topo.size();
+        boolean[] mines = new boolean[n];
+        int start = random.nextInt(n);
+        for (int placed = 0; placed < mineCount; ) {
+            int i = random.nextInt(n);
+            if (i != start && !mines[i]) {
+                mines[i] = true;
+                placed++;
+            }
+        }
+        int[] cells = new int[n];
+        Arrays.fill(cells, HIDDEN);
+        int opened = open(start, topo, mines, cells);
+        while (opened < n - mineCount) {
+            Analysis a = solver.analyze(topo, cells);
+            int pick = -1;
+            if (!a.safe.isEmpty()) {
+                pick = a.safe.get(0);
+            } else {
+                double bestP = 2;
+                for (int i = 0; i < n; i++) {
+                    if (cells[i] != HIDDEN) continue;
+                    double p = Double.isNaN(a.probability[i]) ? (double) mineCount / n : a.probability[i];
+                    if (p < bestP) {
+                        bestP = p;
+                        pick = i;
+                    }
+                }
+            }
+            if (mines[pick]) return false;
+            opened += open(pick, topo, mines, cells);
+        }
+        return true;
+    }
+
+    static int open(int start, MineTopology topo, boolean[] mines, int[] cells) {
+        int[] offsets = topo.offsets, neighbours = topo.neighbours;
+        int opened = 0;
+        int[] stack = new int[neighbours.length + 1];
+        int sp = 0;
+        stack[sp++] = start;
+        while (sp > 0) {
+            int i = stack[--sp];
+            if (cells[i] != HIDDEN) continue;
+            int count = 0;
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                if (mines[neighbours[k]]) count++;
+            }
+            cells[i] = count;
+            opened++;
+            if (count != 0) continue;
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                if (cells[neighbours[k]] == HIDDEN) stack[sp++] = neighbours[k];
+            }
+        }
+        return opened;
+    }
+}
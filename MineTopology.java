@@ -0,0 +1,92 @@
+import java.util.Arrays;
+
+// Precomputed neighbour index in CSR form: the neighbours of cell i are
+// neighbours[offsets[i]] .. neighbours[offsets[i + 1] - 1]. Reveal, count and solver
+// loops walk these arrays, so every board shape shares one bounds-check-free path.
+// Cells are laid out row-major on a rows x cols display grid.
+class MineTopology {
+    final String name;
+    final int rows, cols;
+    final int[] offsets;
+    final int[] neighbours;
+
+    MineTopology(String name, int rows, int cols, int[][] adjacency) {
+        this.name = name;
+        this.rows = rows;
+        this.cols = cols;
+        int n = rows * cols;
+        offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) offsets[i + 1] = offsets[i] + adjacency[i].length;
+        neighbours = new int[offsets[n]];
+        for (int i = 0; i < n; i++) System.arraycopy(adjacency[i], 0, neighbours, offsets[i], adjacency[i].length);
+    }
+
+    int size() {
+        return rows * cols;
+    }
+
+    // Classic rectangle: up to 8 neighbours, no wrap-around
+    static MineTopology square(int rows, int cols) {
+        return grid("Square", rows, cols, false);
+    }
+
+    // Rectangle whose edges wrap around
+    static MineTopology torus(int rows, int cols) {
+        return grid("Torus", rows, cols, true);
+    }
+
+    static MineTopology grid(String name, int rows, int cols, boolean wrap) {
+        int[][] adj = new int[rows * cols][];
+        int[] scratch = new int[8];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int k = 0;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        if (dr == 0 && dc == 0) continue;
+                        int rr = r + dr, cc = c + dc;
+                        if (wrap) {
+                            rr = (rr + rows) % rows;
+                            cc = (cc + cols) % cols;
+                        } else if (rr < 0 || rr >= rows || cc < 0 || cc >= cols) {
+                            continue;
+                        }
+                        int j = rr * cols + cc;
+                        if (j != r * cols + c && !contains(scratch, k, j)) scratch[k++] = j;
+                    }
+                }
+                adj[r * cols + c] = Arrays.copyOf(scratch, k);
+            }
+        }
+        return new MineTopology(name, rows, cols, adj);
+    }
+
+    // Hexagonal board in "odd-r" offset layout: odd rows are shifted half a cell right
+    static MineTopology hex(int rows, int cols) {
+        int[][] even = {{-1, -1}, {-1, 0}, {0, -1}, {0, 1}, {1, -1}, {1, 0}};
+        int[][] odd = {{-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, 0}, {1, 1}};
+        int[][] adj = new int[rows * cols][];
+        int[] scratch = new int[6];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int k = 0;
+                for (int[] d : (r & 1) == 0 ? even : odd) {
+                    int rr = r + d[0], cc = c + d[1];
+                    if (rr >= 0 && rr < rows && cc >= 0 && cc < cols) scratch[k++] = rr * cols + cc;
+                }
+                adj[r * cols + c] = Arrays.copyOf(scratch, k);
+            }
+        }
+        return new MineTopology("Hex", rows, cols, adj);
+    }
+
+    // Arbitrary graph; adjacency[i] lists the neighbours of cell i
+    static MineTopology graph(int rows, int cols, int[][] adjacency) {
+        return new MineTopology("Graph", rows, cols, adjacency);
+    }
+
+    static boolean contains(int[] a, int n, int v) {
+        for (int i = 0; i < n; i++) if (a[i] == v) return true;
+        return false;
+    }
+}
@@ -1,23 +1,65 @@
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
 import java.util.Random;
 import javax.swing.*;
 
 public class Minesweeper {
     private class MineTile extends JButton {
-        int r, c;
+        int r, c, i;
         public MineTile(int r, int c) {
             this.r = r;
             this.c = c;
+            this.i = r * numCols + c;
+        }
+    }
+
+    // Lays tiles out row by row like GridLayout, but shifts odd rows half a tile right to
+    // match MineTopology.hex, so each tile visibly touches its six neighbours
+    static class HexLayout implements LayoutManager {
+        final int rows, cols;
+
+        HexLayout(int rows, int cols) {
+            this.rows = rows;
+            this.cols = cols;
+        }
+
+        @Override
+        public void addLayoutComponent(String name, Component comp) {}
+
+        @Override
+        public void removeLayoutComponent(Component comp) {}
+
+        @Override
+        public Dimension preferredLayoutSize(Container parent) {
+            Dimension tile = parent.getComponentCount() > 0 ? parent.getComponent(0).getPreferredSize() : new Dimension();
+            Insets in = parent.getInsets();
+            return new Dimension(tile.width * (2 * cols + 1) / 2 + in.left + in.right, tile.height * rows + in.top + in.bottom);
+        }
+
+        @Override
+        public Dimension minimumLayoutSize(Container parent) {
+            return new Dimension(0, 0);
+        }
+
+        @Override
+        public void layoutContainer(Container parent) {
+            Insets in = parent.getInsets();
+            double w = (parent.getWidth() - in.left - in.right) / (cols + 0.5);
+            double h = (double) (parent.getHeight() - in.top - in.bottom) / rows;
+            for (int k = 0; k < parent.getComponentCount(); k++) {
+                int r = k / cols, c = k % cols;
+                double shift = (r & 1) != 0 ? 0.5 : 0;
+                int x0 = in.left + (int) Math.round((c + shift) * w), x1 = in.left + (int) Math.round((c + 1 + shift) * w);
+                int y0 = in.top + (int) Math.round(r * h), y1 = in.top + (int) Math.round((r + 1) * h);
+                parent.getComponent(k).setBounds(x0, y0, x1 - x0, y1 - y0);
+            }
         }
     }
 
     int tileSize = 50;
-    int numRows = 9;
-    int numCols = 9;
-    int boardWidth = numCols * tileSize;
-    int boardHeight = numRows * tileSize;
+    MineTopology topology;
+    int numRows;
+    int numCols;
 
     JFrame frame = new JFrame("Minesweeper");
     JLabel textLabel = new JLabel();
@@ -26,15 +68,37 @@ public class Minesweeper {
     JButton hintButton = new JButton("Hint");
 
     int mineCount = 15;
-    MineTile[][] board = new MineTile[numRows][numCols];
-    ArrayList<MineTile> mineList = new ArrayList<>();
+    MineTile[] board;
+    boolean[] isMine;
+    int[] mineCells;
+    int[] adjacent; // precomputed neighbour mine counts
     Random random = new Random();
+    MineSolver solver = new MineSolver(1024);
 
     int tilesClicked = 0;
     boolean gameOver = false;
 
+    // Infinite mode: the tiles are a viewport onto an unbounded chunked field
+    ChunkedMineField field;
+    int originRow = 0, originCol = 0;
+
     Minesweeper() {
-        frame.setSize(boardWidth, boardHeight + 130);
+        this(MineTopology.square(9, 9), null);
+    }
+
+    Minesweeper(MineTopology topology) {
+        this(topology, null);
+    }
+
+    Minesweeper(MineTopology topology, ChunkedMineField field) {
+        this.topology = topology;
+        this.field = field;
+        numRows = topology.rows;
+        numCols = topology.cols;
+        board = new MineTile[numRows * numCols];
+        if (field == null && !topology.name.equals("Square")) frame.setTitle("Minesweeper (" + topology.name + ")");
+        boolean hex = topology.name.equals("Hex");
+        frame.setSize(numCols * tileSize + (hex ? tileSize / 2 : 0), numRows * tileSize + 130);
         frame.setLocationRelativeTo(null);
         frame.setResizable(false);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -42,20 +106,20 @@ public class Minesweeper {
 
         textLabel.setFont(new Font("Arial", Font.BOLD, 25));
         textLabel.setHorizontalAlignment(JLabel.CENTER);
-        textLabel.setText("Minesweeper: " + mineCount);
+        textLabel.setText(field == null ? "Minesweeper: " + mineCount : "Minesweeper: ∞");
         textLabel.setOpaque(true);
 
         textPanel.setLayout(new BorderLayout());
         textPanel.add(textLabel, BorderLayout.CENTER);
         frame.add(textPanel, BorderLayout.NORTH);
 
-        boardPanel.setLayout(new GridLayout(numRows, numCols));
+        boardPanel.setLayout(hex ? new HexLayout(numRows, numCols) : new GridLayout(numRows, numCols));
         frame.add(boardPanel, BorderLayout.CENTER);
 
         for (int r = 0; r < numRows; r++) {
             for (int c = 0; c < numCols; c++) {
                 MineTile tile = new MineTile(r, c);
-                board[r][c] = tile;
+                board[tile.i] = tile;
 
                 tile.setFocusable(false);
                 tile.setMargin(new Insets(0, 0, 0, 0));
@@ -67,13 +131,17 @@ public class Minesweeper {
                         if (gameOver) return;
 
                         MineTile clickedTile = (MineTile) e.getSource();
+                        if (field != null) {
+                            clickInfinite(clickedTile, e.getButton());
+                            return;
+                        }
 
                         if (e.getButton() == MouseEvent.BUTTON1) {
                             if (clickedTile.getText().equals("")) {
-                                if (mineList.contains(clickedTile)) {
+                                if (isMine[clickedTile.i]) {
                                     revealMines();
                                 } else {
-                                    checkMine(clickedTile.r, clickedTile.c);
+                                    checkMine(clickedTile.i);
                                 }
                             }
                         } else if (e.getButton() == MouseEvent.BUTTON3) {
@@ -94,25 +162,42 @@ public class Minesweeper {
         hintButton.addActionListener(e -> provideHint());
         frame.add(hintButton, BorderLayout.SOUTH);
 
+        if (field != null) {
+            bindScrollKeys();
+            renderViewport();
+        }
+
         frame.setVisible(true);
-        setMines();
+        if (field == null) setMines();
     }
 
     void setMines() {
+        int n = topology.size();
+        isMine = new boolean[n];
+        mineCells = new int[mineCount];
         int mineLeft = mineCount;
         while (mineLeft > 0) {
-            int r = random.nextInt(numRows);
-            int c = random.nextInt(numCols);
-            MineTile tile = board[r][c];
-            if (!mineList.contains(tile)) {
-                mineList.add(tile);
-                mineLeft--;
+            int i = random.nextInt(n);
+            if (!isMine[i]) {
+                isMine[i] = true;
+                mineCells[--mineLeft] = i;
+            }
+        }
+
+        adjacent = new int[n];
+        int[] offsets = topology.offsets, neighbours = topology.neighbours;
+        for (int i = 0; i < n; i++) {
+            int count = 0;
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                if (isMine[neighbours[k]]) count++;
             }
+            adjacent[i] = count;
         }
     }
 
     void revealMines() {
-        for (MineTile tile : mineList) {
+        for (int i : mineCells) {
+            MineTile tile = board[i];
             tile.setText("💣");
             tile.setForeground(Color.RED);
             tile.setBackground(Color.RED);
@@ -125,37 +210,30 @@ public class Minesweeper {
         }
     }
 
-    void checkMine(int r, int c) {
-        if (r < 0 || r >= numRows || c < 0 || c >= numCols) return;
-        MineTile tile = board[r][c];
-        if (!tile.isEnabled() || tile.getText().equals("🚩")) return;
+    void checkMine(int start) {
+        int[] offsets = topology.offsets, neighbours = topology.neighbours;
+        int[] stack = new int[neighbours.length + 1];
+        int sp = 0;
+        stack[sp++] = start;
+        while (sp > 0) {
+            int i = stack[--sp];
+            MineTile tile = board[i];
+            if (!tile.isEnabled() || tile.getText().equals("🚩")) continue;
 
-        tile.setEnabled(false);
-        tilesClicked++;
-
-        int minesFound = 0;
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr != 0 || dc != 0) {
-                    minesFound += countMine(r + dr, c + dc);
-                }
-            }
-        }
+            tile.setEnabled(false);
+            tilesClicked++;
 
-        if (minesFound > 0) {
-            tile.setText(Integer.toString(minesFound));
-        } else {
-            tile.setText("");
-            for (int dr = -1; dr <= 1; dr++) {
-                for (int dc = -1; dc <= 1; dc++) {
-                    if (dr != 0 || dc != 0) {
-                        checkMine(r + dr, c + dc);
-                    }
+            if (adjacent[i] > 0) {
+                tile.setText(Integer.toString(adjacent[i]));
+            } else {
+                tile.setText("");
+                for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                    if (board[neighbours[k]].isEnabled()) stack[sp++] = neighbours[k];
                 }
             }
         }
 
-        if (tilesClicked == numRows * numCols - mineList.size()) {
+        if (tilesClicked == topology.size() - mineCells.length) {
             gameOver = true;
             textLabel.setText("🎉 You Win! 🎉");
             textLabel.setForeground(new Color(0, 128, 0));
@@ -164,20 +242,113 @@ public class Minesweeper {
         }
     }
 
-    int countMine(int r, int c) {
-        if (r < 0 || r >= numRows || c < 0 || c >= numCols) return 0;
-        return mineList.contains(board[r][c]) ? 1 : 0;
-    }
-
     void provideHint() {
         if (gameOver) return;
+        if (field != null) {
+            provideInfiniteHint();
+            return;
+        }
 
-        for (int r = 0; r < numRows; r++) {
-            for (int c = 0; c < numCols; c++) {
-                MineTile tile = board[r][c];
-                if (tile.isEnabled() && tile.getText().equals("") && !mineList.contains(tile)) {
-                    checkMine(r, c);
-                    JOptionPane.showMessageDialog(frame, "Hint: Safe cell at (" + (r + 1) + ", " + (c + 1) + ")");
+        // Prefer a cell the solver can prove safe from the visible numbers
+        int[] cells = new int[board.length];
+        for (MineTile tile : board) {
+            cells[tile.i] = tile.isEnabled() ? MineSolver.HIDDEN
+                    : tile.getText().isEmpty() ? 0 : Integer.parseInt(tile.getText());
+        }
+        MineSolver.Analysis analysis = solver.analyze(topology, cells);
+        for (int cell : analysis.safe) {
+            MineTile tile = board[cell];
+            if (tile.getText().equals("🚩")) continue;
+            checkMine(cell);
+            JOptionPane.showMessageDialog(frame, "Hint: Safe cell at (" + (tile.r + 1) + ", " + (tile.c + 1) + ")");
+            return;
+        }
+
+        for (MineTile tile : board) {
+            if (tile.isEnabled() && tile.getText().equals("") && !isMine[tile.i]) {
+                checkMine(tile.i);
+                JOptionPane.showMessageDialog(frame, "Hint: Safe cell at (" + (tile.r + 1) + ", " + (tile.c + 1) + ")");
+                return;
+            }
+        }
+        JOptionPane.showMessageDialog(frame, "No safe hints available!");
+    }
+
+    // --- Infinite mode ---
+    static Minesweeper infinite() {
+        return new Minesweeper(MineTopology.square(9, 9), new ChunkedMineField(new Random().nextLong(), 15.0 / 81, 64));
+    }
+
+    void bindScrollKeys() {
+        JRootPane root = frame.getRootPane();
+        int[][] keys = {
+            {KeyEvent.VK_UP, -1, 0}, {KeyEvent.VK_DOWN, 1, 0},
+            {KeyEvent.VK_LEFT, 0, -1}, {KeyEvent.VK_RIGHT, 0, 1},
+            {KeyEvent.VK_W, -1, 0}, {KeyEvent.VK_S, 1, 0},
+            {KeyEvent.VK_A, 0, -1}, {KeyEvent.VK_D, 0, 1}
+        };
+        for (int[] k : keys) {
+            String name = "scroll" + k[0];
+            root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(k[0], 0), name);
+            root.getActionMap().put(name, new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    originRow += k[1];
+                    originCol += k[2];
+                    renderViewport();
+                }
+            });
+        }
+    }
+
+    void clickInfinite(MineTile tile, int button) {
+        int r = originRow + tile.r, c = originCol + tile.c;
+        if (button == MouseEvent.BUTTON1) {
+            if (!field.reveal(r, c)) gameOver = true;
+        } else if (button == MouseEvent.BUTTON3) {
+            field.toggleFlag(r, c);
+        }
+        renderViewport();
+    }
+
+    void renderViewport() {
+        for (int vr = 0; vr < numRows; vr++) {
+            for (int vc = 0; vc < numCols; vc++) {
+                MineTile tile = board[vr * numCols + vc];
+                int r = originRow + vr, c = originCol + vc;
+                tile.setForeground(Color.BLACK);
+                tile.setBackground(null);
+                if (gameOver && field.isMine(r, c)) {
+                    tile.setText("💣");
+                    tile.setForeground(Color.RED);
+                    tile.setBackground(Color.RED);
+                    tile.setEnabled(false);
+                } else if (field.isRevealed(r, c)) {
+                    int n = field.adjacentMines(r, c);
+                    tile.setText(n > 0 ? Integer.toString(n) : "");
+                    tile.setEnabled(false);
+                } else {
+                    tile.setText(field.isFlagged(r, c) ? "🚩" : "");
+                    tile.setEnabled(true);
+                }
+            }
+        }
+        if (gameOver) {
+            textLabel.setText("💥 Game Over! Revealed " + field.revealedCount);
+            textLabel.setForeground(Color.RED);
+        } else {
+            textLabel.setText("Minesweeper: ∞  (" + originRow + ", " + originCol + ")  Revealed " + field.revealedCount);
+        }
+    }
+
+    void provideInfiniteHint() {
+        for (int vr = 0; vr < numRows; vr++) {
+            for (int vc = 0; vc < numCols; vc++) {
+                int r = originRow + vr, c = originCol + vc;
+                if (!field.isRevealed(r, c) && !field.isFlagged(r, c) && !field.isMine(r, c)) {
+                    field.reveal(r, c);
+                    renderViewport();
+                    JOptionPane.showMessageDialog(frame, "Hint: Safe cell at (" + r + ", " + c + ")");
                     return;
                 }
             }
@@ -186,6 +357,14 @@ public class Minesweeper {
     }
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(Minesweeper::new);
+        if (args.length > 0 && args[0].equals("infinite")) {
+            SwingUtilities.invokeLater(Minesweeper::infinite);
+        } else if (args.length > 0 && args[0].equals("torus")) {
+            SwingUtilities.invokeLater(() -> new Minesweeper(MineTopology.torus(9, 9)));
+        } else if (args.length > 0 && args[0].equals("hex")) {
+            SwingUtilities.invokeLater(() -> new Minesweeper(MineTopology.hex(9, 9)));
+        } else {
+            SwingUtilities.invokeLater(Minesweeper::new);
+        }
     }
 }
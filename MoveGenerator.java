@@ -0,0 +1,4 @@
+interface MoveGenerator<S extends GameState> {
+    // Moves to try from state into out (from index 0); returns how many
+    int generate(S state, int[] out);
+}
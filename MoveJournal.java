@@ -0,0 +1,123 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Undo/redo history of a Klondike game as a ring buffer of ints. Each entry is a packed
+// move (16 bits) and the token its make() returned (the flip or recycle side effect),
+// which is exactly what unmake() needs, so undo and redo never copy the position. When
+// the buffer is full the oldest moves are forgotten.
+class MoveJournal {
+    static final int DEFAULT_CAPACITY = 2048; // moves; 8 KB
+
+    private final int[] entries;
+    private final int mask;
+    private int head;  // index of the oldest entry
+    private int size;  // moves that can be undone
+    private int redo;  // undone moves that can be replayed
+
+    MoveJournal() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    MoveJournal(int capacity) {
+        int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        entries = new int[cap];
+        mask = cap - 1;
+    }
+
+    // Record a move that has just been made; forgets anything that could be redone
+    void record(int move, int token) {
+        redo = 0;
+        if (size == entries.length) {
+            head = (head + 1) & mask;
+            size--;
+        }
+        entries[(head + size++) & mask] = move | token << 16;
+    }
+
+    boolean canUndo() { return size > 0; }
+    boolean canRedo() { return redo > 0; }
+    int size() { return size; }
+
+    // Most recent move still applied, or NO_MOVE
+    int lastMove() {
+        return size == 0 ? KlondikeModel.NO_MOVE : entries[(head + size - 1) & mask] & 0xffff;
+    }
+
+    // Revert the most recent move and return it
+    int undo(KlondikeModel model) {
+        int e = entries[(head + --size) & mask];
+        redo++;
+        model.unmake(e & 0xffff, e >>> 16);
+        return e & 0xffff;
+    }
+
+    // Replay the most recently undone move and return it
+    int redo(KlondikeModel model) {
+        int i = (head + size++) & mask;
+        redo--;
+        int move = entries[i] & 0xffff;
+        entries[i] = move | model.make(move) << 16;
+        return move;
+    }
+
+    void clear() {
+        head = size = redo = 0;
+    }
+
+    int bytes() {
+        return 8 + 4 * (size + redo);
+    }
+
+    // Undoable count, redoable count, then the entries oldest first
+    void write(ByteBuffer out) {
+        out.putInt(size).putInt(redo);
+        for (int i = 0; i < size + redo; i++) out.putInt(entries[(head + i) & mask]);
+    }
+
+    // Replace the contents with what write produced; keeps the newest entries if the
+    // saved history is longer than this journal holds
+    void read(ByteBuffer in) {
+        int undoable = in.getInt(), redoable = in.getInt();
+        if (undoable < 0 || redoable < 0 || (long) (undoable + redoable) * 4 > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        int skip = Math.max(0, undoable + redoable - entries.length);
+        for (int i = 0; i < skip; i++) in.getInt();
+        clear();
+        for (int i = skip; i < undoable + redoable; i++) entries[i - skip] = in.getInt();
+        redo = Math.min(redoable, entries.length);
+        size = undoable + redoable - skip - redo;
+    }
+
+    // True if the entries are a history that leads to model: taking each undoable move
+    // back reaches a position where it is legal and where making it gives the same token
+    // and the same position again, and the redoable moves replay legally from model.
+    // Checked on copies; model is left as it was.
+    boolean matches(KlondikeModel model) {
+        KlondikeModel m = model.clone(), after = model.clone();
+        for (int i = size - 1; i >= 0; i--) {
+            int e = entries[(head + i) & mask], move = e & 0xffff, token = e >>> 16;
+            after.copyFrom(m);
+            try {
+                m.unmake(move, token);
+            } catch (IndexOutOfBoundsException ex) {
+                return false; // a garbage entry can point outside the piles
+            }
+            if (!m.isLegal(move)) return false;
+            KlondikeModel check = m.clone();
+            if (check.make(move) != token || !samePosition(check, after)) return false;
+        }
+        m.copyFrom(model);
+        for (int i = size; i < size + redo; i++) {
+            int move = entries[(head + i) & mask] & 0xffff;
+            if (!m.isLegal(move)) return false;
+            m.make(move);
+        }
+        return true;
+    }
+
+    private static boolean samePosition(KlondikeModel a, KlondikeModel b) {
+        return a.faceUp == b.faceUp && Arrays.equals(a.state, b.state);
+    }
+}
@@ -0,0 +1,64 @@
+import java.util.function.BooleanSupplier;
+
+// KlondikeSolver's best-first search spread over several threads: ParallelSearch over the
+// solver's SearchState, with the same move generator and priority. Each worker gets its own
+// SearchState on a clone of the deal, since a SearchState keeps its automatic moves in the
+// KlondikeSolver that made it. The node store and claim table stay with the driver, so
+// repeated solves do not reallocate. A deal is proven unwinnable only once every claimed
+// state has been expanded and no worker holds any work.
+class ParallelKlondikeSolver {
+    int threads = Runtime.getRuntime().availableProcessors();
+    int maxNodes = 4_000_000;
+    long maxMillis = 10_000;
+    int tableMegabytes = 64;
+    BooleanSupplier cancelled; // polled during the search; true makes it give up
+
+    private final KlondikeSolver helper = new KlondikeSolver(); // heuristic and winning lines
+    private final ParallelSearch<KlondikeSolver.SearchState> search = new ParallelSearch<>(
+            (s, out) -> KlondikeSolver.generate(s.model, out, 0), helper.heuristic(),
+            s -> new KlondikeSolver().new SearchState(s.model.clone()));
+
+    ParallelKlondikeSolver() {
+        search.maxMoves = KlondikeModel.MAX_MOVES;
+    }
+
+    ParallelKlondikeSolver(int threads, int maxNodes, long maxMillis) {
+        this();
+        this.threads = threads;
+        this.maxNodes = maxNodes;
+        this.maxMillis = maxMillis;
+    }
+
+    KlondikeSolver.Result solve(KlondikeModel start) {
+        search.threads = threads;
+        search.maxNodes = maxNodes;
+        search.maxMillis = maxMillis;
+        search.tableMegabytes = tableMegabytes;
+        search.cancelled = cancelled;
+
+        KlondikeModel root = start.clone();
+        SearchResult r = search.solve(helper.new SearchState(root.clone()));
+        KlondikeSolver.Status status = switch (r.status) {
+            case SOLVED -> KlondikeSolver.Status.WON;
+            case EXHAUSTED -> KlondikeSolver.Status.UNWINNABLE;
+            case GAVE_UP -> KlondikeSolver.Status.GAVE_UP;
+        };
+        int[] moves = status == KlondikeSolver.Status.WON ? helper.line(root, r.moves) : new int[0];
+        return new KlondikeSolver.Result(status, moves, search.nodeCount(), r.millis);
+    }
+
+    // Solves deals 0, 1, 2, ... with all available cores and prints one line per deal
+    public static void main(String[] args) {
+        int deals = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        ParallelKlondikeSolver solver = new ParallelKlondikeSolver();
+        if (args.length > 1) solver.threads = Integer.parseInt(args[1]);
+        int won = 0, lost = 0;
+        for (int d = 0; d < deals; d++) {
+            KlondikeSolver.Result r = solver.solve(new KlondikeModel(d));
+            if (r.status == KlondikeSolver.Status.WON) won++;
+            if (r.status == KlondikeSolver.Status.UNWINNABLE) lost++;
+            System.out.println("deal " + d + ": " + r);
+        }
+        System.out.println("won=" + won + " unwinnable=" + lost + " unknown=" + (deals - won - lost));
+    }
+}
@@ -0,0 +1,307 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.UnaryOperator;
+
+// BestFirstSearch spread over several threads. Workers share one node store and one
+// lossy transposition table in which they claim states; each works on its own copy of
+// the start, keeps its own open list and dives like BestFirstSearch. Idle workers are fed
+// from a shared queue that busy workers donate their best open node to, so work spreads
+// without a global lock. The first worker to reach a goal raises the stop flag; the
+// search is exhausted only once every claimed state has been expanded and no worker
+// holds any work. Node storage grows in chunks as nodes are added and, like the table,
+// is kept for the next search. With one thread the search runs on the calling thread;
+// otherwise on daemon threads that end with it. The start is left as it was.
+class ParallelSearch<S extends GameState> extends SearchDriver<S> {
+    static final int NONE = -1;
+    static final int NODE_BLOCK = 1024; // node indices a worker reserves at a time
+    static final int CHUNK_BITS = 16;   // log2 of the nodes per storage chunk
+    static final int CHUNK = 1 << CHUNK_BITS;
+
+    final MoveGenerator<S> generator;
+    final Heuristic<S> heuristic;
+    final UnaryOperator<S> copier; // a worker's own copy of the start
+    int threads = Runtime.getRuntime().availableProcessors();
+    int tableMegabytes = 64;
+
+    // Node storage, chunk c holding nodes c * CHUNK ...; chunks are allocated on first use
+    private int[][] parent = new int[0][], moveOf = new int[0][], costOf = new int[0][];
+    private TranspositionTable claimed;
+    private int claimedMegabytes;
+
+    // Shared search state, reset by every search
+    private int limit;
+    private AtomicInteger nextNode;
+    private ConcurrentLinkedQueue<Long> donated;
+    private AtomicLong outstanding; // queued nodes + busy workers; 0 means the search is exhausted
+    private AtomicInteger hungry;   // workers waiting for donated work
+    private AtomicBoolean stop;
+    private AtomicReference<int[]> goalLine;
+    private AtomicLong expanded;
+    private volatile boolean outOfBudget;
+
+    ParallelSearch(MoveGenerator<S> generator, Heuristic<S> heuristic, UnaryOperator<S> copier) {
+        this.generator = generator;
+        this.heuristic = heuristic;
+        this.copier = copier;
+    }
+
+    // Nodes stored by the last search; every one is a distinct state
+    int nodeCount() {
+        return Math.min(nextNode.get(), limit);
+    }
+
+    @Override
+    public SearchResult solve(S start) {
+        begin();
+        limit = (int) Math.min(maxNodes, Integer.MAX_VALUE - NODE_BLOCK);
+        int chunks = (int) (((long) limit + CHUNK - 1) >>> CHUNK_BITS);
+        if (parent.length < chunks) {
+            parent = Arrays.copyOf(parent, chunks);
+            moveOf = Arrays.copyOf(moveOf, chunks);
+            costOf = Arrays.copyOf(costOf, chunks);
+        }
+        if (claimed == null || claimedMegabytes != tableMegabytes) {
+            claimed = new TranspositionTable(tableMegabytes, false);
+            claimedMegabytes = tableMegabytes;
+        } else {
+            claimed.clear();
+        }
+        nextNode = new AtomicInteger();
+        donated = new ConcurrentLinkedQueue<>();
+        outstanding = new AtomicLong();
+        hungry = new AtomicInteger();
+        stop = new AtomicBoolean();
+        goalLine = new AtomicReference<>();
+        expanded = new AtomicLong();
+        outOfBudget = false;
+
+        ensureChunks(0, 0);
+        parent[0][0] = NONE;
+        moveOf[0][0] = NONE;
+        costOf[0][0] = 0;
+        nextNode.set(1);
+        if (start.isGoal()) return result(SearchResult.Status.SOLVED, new int[0]);
+        claimed.store(start.hash(), 0, 0, TranspositionTable.EXACT, 0);
+        outstanding.set(1);
+        donated.add(heuristic.priority(start, 0, NONE) << 32);
+
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, threads); i++) workers.add(new Worker(copier.apply(start)));
+        if (workers.size() == 1) {
+            workers.get(0).run();
+        } else {
+            Thread[] running = new Thread[workers.size()];
+            for (int i = 0; i < running.length; i++) {
+                running[i] = new Thread(workers.get(i), "search-worker-" + i);
+                running[i].setDaemon(true);
+                running[i].start();
+            }
+            for (Thread t : running) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    stop.set(true);
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        nodes = expanded.get();
+
+        int[] line = goalLine.get();
+        if (line != null) return result(SearchResult.Status.SOLVED, line);
+        if (!outOfBudget && !stop.get() && outstanding.get() == 0) return result(SearchResult.Status.EXHAUSTED, new int[0]);
+        return result(SearchResult.Status.GAVE_UP, new int[0]);
+    }
+
+    private int parent(int node) {
+        return parent[node >>> CHUNK_BITS][node & (CHUNK - 1)];
+    }
+
+    private int moveOf(int node) {
+        return moveOf[node >>> CHUNK_BITS][node & (CHUNK - 1)];
+    }
+
+    private int costOf(int node) {
+        return costOf[node >>> CHUNK_BITS][node & (CHUNK - 1)];
+    }
+
+    // Allocates chunks first..last where no worker has yet. A worker calls this for every
+    // block it reserves and otherwise only reads nodes handed to it through the donation
+    // queue, so each chunk's creation is ordered before every use of it.
+    private synchronized void ensureChunks(int first, int last) {
+        for (int c = first; c <= last; c++) {
+            if (parent[c] == null) {
+                parent[c] = new int[CHUNK];
+                moveOf[c] = new int[CHUNK];
+                costOf[c] = new int[CHUNK];
+            }
+        }
+    }
+
+    // Moves from the start to node
+    private int[] line(int node) {
+        int len = 0;
+        for (int n = node; parent(n) != NONE; n = parent(n)) len++;
+        int[] out = new int[len];
+        for (int n = node; parent(n) != NONE; n = parent(n)) out[--len] = moveOf(n);
+        return out;
+    }
+
+    final class Worker implements Runnable {
+        private final S state;
+        private final LongHeap open = new LongHeap();
+        private final LongHashSet visited = new LongHashSet(1 << 16);
+        private final int[] buffer = new int[maxMoves];
+        private int[] path = new int[256];
+        private int[] lineMoves = new int[256], lineTokens = new int[256];
+        private int lineLength;
+        private int blockNext, blockEnd;
+
+        Worker(S state) {
+            this.state = state;
+        }
+
+        @Override
+        public void run() {
+            boolean busy = false;
+            long count = 0;
+            try {
+                while (!stop.get()) {
+                    long entry;
+                    if (!open.isEmpty()) {
+                        entry = open.popEntry();
+                    } else {
+                        if (busy) {
+                            busy = false;
+                            outstanding.decrementAndGet();
+                        }
+                        entry = takeDonated();
+                        if (entry < 0) return;
+                        busy = true;
+                    }
+                    int node = (int) entry;
+                    restore(node);
+
+                    // Dive through the best new child in place, as BestFirstSearch does
+                    while (node != NONE) {
+                        if (outOfTime(++count)) {
+                            outOfBudget = true;
+                            stop.set(true);
+                        }
+                        if (stop.get()) return;
+                        int best = NONE;
+                        long bestPriority = Long.MAX_VALUE;
+                        int n = generator.generate(state, buffer);
+                        for (int i = 0; i < n; i++) {
+                            int m = buffer[i];
+                            int token = state.make(m);
+                            if (claim(state.hash())) {
+                                int child = addNode(node, m, costOf(node) + state.cost(m, token));
+                                if (child == NONE) return;
+                                if (state.isGoal()) {
+                                    if (goalLine.compareAndSet(null, line(child))) stop.set(true);
+                                    return;
+                                }
+                                long p = heuristic.priority(state, costOf(child), m);
+                                if (p < bestPriority) {
+                                    if (best != NONE) open.push(bestPriority, best);
+                                    best = child;
+                                    bestPriority = p;
+                                } else {
+                                    open.push(p, child);
+                                }
+                            }
+                            state.unmake(m, token);
+                        }
+                        // Feed idle workers before diving on
+                        if (hungry.get() > 0 && !open.isEmpty()) {
+                            outstanding.incrementAndGet();
+                            donated.add(open.popEntry());
+                        }
+                        node = best;
+                        if (best != NONE) push(moveOf(best), state.make(moveOf(best)));
+                    }
+                }
+            } finally {
+                expanded.addAndGet(count);
+            }
+        }
+
+        // Next donated node, or -1 once the search is exhausted or stopped. Taking a queued
+        // node turns this worker busy, so outstanding is unchanged.
+        private long takeDonated() {
+            hungry.incrementAndGet();
+            try {
+                while (!stop.get()) {
+                    Long entry = donated.poll();
+                    if (entry != null) return entry;
+                    if (outstanding.get() == 0) return -1;
+                    LockSupport.parkNanos(50_000);
+                }
+                return -1;
+            } finally {
+                hungry.decrementAndGet();
+            }
+        }
+
+        // True if this worker should expand the state. The local set keeps the search
+        // finite even when the lossy shared table forgets a state.
+        private boolean claim(long hash) {
+            if (!visited.add(hash)) return false;
+            if (claimed.probe(hash) != 0) return false;
+            claimed.store(hash, 0, 0, TranspositionTable.EXACT, 0);
+            return true;
+        }
+
+        private int addNode(int p, int m, int g) {
+            if (blockNext == blockEnd) {
+                blockNext = nextNode.getAndAdd(NODE_BLOCK);
+                blockEnd = Math.min(blockNext + NODE_BLOCK, limit);
+                if (blockNext >= blockEnd) {
+                    outOfBudget = true;
+                    stop.set(true);
+                    return NONE;
+                }
+                // A block can straddle two chunks; taking the lock also makes chunks other
+                // workers allocated visible to this one
+                ensureChunks(blockNext >>> CHUNK_BITS, (blockEnd - 1) >>> CHUNK_BITS);
+            }
+            int node = blockNext++;
+            int c = node >>> CHUNK_BITS, i = node & (CHUNK - 1);
+            parent[c][i] = p;
+            moveOf[c][i] = m;
+            costOf[c][i] = g;
+            return node;
+        }
+
+        private void push(int move, int token) {
+            if (lineLength == lineMoves.length) {
+                lineMoves = Arrays.copyOf(lineMoves, lineLength * 2);
+                lineTokens = Arrays.copyOf(lineTokens, lineLength * 2);
+            }
+            lineMoves[lineLength] = move;
+            lineTokens[lineLength++] = token;
+        }
+
+        // Take the current line back and make node's line instead
+        private void restore(int node) {
+            while (lineLength > 0) {
+                lineLength--;
+                state.unmake(lineMoves[lineLength], lineTokens[lineLength]);
+            }
+            int len = 0;
+            for (int n = node; parent(n) != NONE; n = parent(n)) {
+                if (len == path.length) path = Arrays.copyOf(path, len * 2);
+                path[len++] = moveOf(n);
+            }
+            for (int i = len - 1; i >= 0; i--) push(path[i], state.make(path[i]));
+        }
+    }
+}
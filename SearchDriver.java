@@ -0,0 +1,48 @@
+import java.util.function.BooleanSupplier;
+
+// Limits and counters common to the drivers
+abstract class SearchDriver<S extends GameState> implements Solver<S> {
+    static final int CHECK_EVERY = 1024; // nodes between clock checks
+    static final int CANCEL_EVERY = 64;  // nodes between cancel checks
+
+    long maxNodes = Long.MAX_VALUE;
+    long maxMillis = Long.MAX_VALUE;
+    int maxMoves = 256;        // move buffer size; at least what any position can generate
+    BooleanSupplier cancelled; // polled during the search; true makes it give up
+
+    // Instrumentation, reset by every search
+    long nodes;
+    long tableHits;
+    int maxDepth;
+    protected long started;
+    protected boolean stopped;
+
+    protected void begin() {
+        started = System.currentTimeMillis();
+        nodes = tableHits = 0;
+        maxDepth = 0;
+        stopped = false;
+    }
+
+    // Counts a node; true once the search has to stop
+    protected boolean visit(int depth) {
+        if (depth > maxDepth) maxDepth = depth;
+        if (++nodes > maxNodes || outOfTime(nodes)) stopped = true;
+        return stopped;
+    }
+
+    // True once the clock has run out or the caller cancelled; count is the nodes visited
+    // so far, which spaces the checks out
+    protected boolean outOfTime(long count) {
+        return (count % CANCEL_EVERY == 0 && cancelled != null && cancelled.getAsBoolean())
+                || (count % CHECK_EVERY == 0 && System.currentTimeMillis() - started > maxMillis);
+    }
+
+    protected SearchResult result(SearchResult.Status status, int[] moves) {
+        return new SearchResult(status, moves, nodes, System.currentTimeMillis() - started);
+    }
+
+    String stats() {
+        return "nodes=" + nodes + " tableHits=" + tableHits + " maxDepth=" + maxDepth;
+    }
+}
@@ -0,0 +1,20 @@
+final class SearchResult {
+    enum Status { SOLVED, EXHAUSTED, GAVE_UP }
+
+    final Status status;
+    final int[] moves; // from the start to the goal when SOLVED; empty otherwise
+    final long nodes;
+    final long millis;
+
+    SearchResult(Status status, int[] moves, long nodes, long millis) {
+        this.status = status;
+        this.moves = moves;
+        this.nodes = nodes;
+        this.millis = millis;
+    }
+
+    @Override
+    public String toString() {
+        return status + " moves=" + moves.length + " nodes=" + nodes + " time=" + millis + "ms";
+    }
+}
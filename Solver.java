@@ -0,0 +1,3 @@
+interface Solver<S extends GameState> {
+    SearchResult solve(S start);
+}
@@ -0,0 +1,432 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Headless solver service on a loopback socket (java App --server [port]). Each
+// connection sends one request per line and gets one reply line per request, in order:
+//
+//   sudoku solve <81 cells>           ok <81 cells> | none | unknown   cells: 1-9, 0 or . empty
+//   sudoku hint <81 cells>            ok <row> <col> <digit> | none | unknown
+//   sudoku generate <empty cells>     ok <81 cells>
+//   klondike solve <deal> [move...]   ok <move...> | none | unknown    moves as ints
+//   klondike hint <deal> [move...]    ok <move> | none | unknown
+//   klondike generate                 ok <deal>   (a deal proven winnable)
+//   mines analyze <shape> <rows> <cols> <cells>   ok safe=<i,...> mines=<i,...> | unknown
+//   mines hint <shape> <rows> <cols> <cells>      ok <cell> <mine probability> | unknown
+//   mines generate <shape> <rows> <cols> <mines> [seed]   ok <cells, * for a mine>
+//
+// A sudoku is unknown when it takes more than SUDOKU_MAX_NODES search nodes.
+// Mines cells are # for hidden or the revealed count; shape is square, torus or hex.
+// unknown means the analysis was partial: a frontier component of more than
+// MineSolver.MAX_VARS cells, or more than MINES_MAX_NODES search nodes in all.
+// Any other reply is "busy" (queues full or too slow; retry later) or "error <reason>".
+//
+// Connections are served on virtual threads when the JVM has them (Java 21+) and on
+// plain threads otherwise; they only parse and wait. Solving runs on two fixed pools
+// with bounded queues, one for quick Sudoku and Minesweeper work and one for Klondike
+// searches, so a burst of long solves cannot hold up the quick ones, and a full queue
+// answers busy at once instead of letting latency grow. Sudoku requests are
+// micro-batched: a batcher thread collects up to BATCH of them, waiting at most
+// BATCH_WAIT_NANOS after the first, and solves them in one pool task. A task that runs
+// past BATCH_MAX_MILLIS queues the rest of its batch as a new task, so a batch of slow
+// puzzles cannot hold a quick thread for long.
+class SolverServer {
+    static final int DEFAULT_PORT = 7777;
+    static final int QUEUE = 256;                    // tasks waiting per pool
+    static final int BATCH = 32;
+    static final long BATCH_WAIT_NANOS = 200_000;
+    static final long BATCH_MAX_MILLIS = 50;
+    static final long SUDOKU_MAX_NODES = 1_000_000; // per puzzle, roughly 100 ms
+    static final long KLONDIKE_MAX_MILLIS = 2_000;
+    static final long KLONDIKE_MAX_NODES = 2_000_000;
+    static final long REPLY_TIMEOUT_MILLIS = 10_000;
+    static final long MINES_MAX_NODES = 2_000_000; // per request, roughly 100 ms
+
+    final ThreadPoolExecutor quick;
+    final ThreadPoolExecutor heavy;
+    final ExecutorService connections;
+    final BlockingQueue<SudokuJob> sudokuJobs = new ArrayBlockingQueue<>(QUEUE * BATCH);
+    final ThreadLocal<KlondikeSolver> klondikeSolvers =
+            ThreadLocal.withInitial(() -> new KlondikeSolver(KLONDIKE_MAX_NODES, KLONDIKE_MAX_MILLIS));
+    final ThreadLocal<MineSolver> mineSolvers = ThreadLocal.withInitial(() -> {
+        MineSolver solver = new MineSolver(4096);
+        solver.maxNodes = MINES_MAX_NODES;
+        return solver;
+    });
+    private KlondikeDealPool deals;
+    private volatile ServerSocket socket;
+
+    static final class SudokuJob {
+        final boolean hint;
+        final int[][] board; // null: generate
+        final int empty;
+        final CompletableFuture<String> reply = new CompletableFuture<>();
+
+        SudokuJob(boolean hint, int[][] board, int empty) {
+            this.hint = hint;
+            this.board = board;
+            this.empty = empty;
+        }
+    }
+
+    SolverServer(int threads) {
+        quick = pool("solver-quick", threads);
+        heavy = pool("solver-heavy", threads);
+        connections = connectionExecutor();
+        Thread batcher = new Thread(this::batchSudoku, "solver-sudoku-batcher");
+        batcher.setDaemon(true);
+        batcher.start();
+    }
+
+    static ThreadPoolExecutor pool(String name, int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE), r -> {
+            Thread t = new Thread(r, name + "-" + count.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // One virtual thread per task on Java 21+, found by reflection so the code still
+    // builds and runs on older JDKs, which get a cached pool of daemon threads instead
+    static ExecutorService connectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "solver-connection");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    void serve(int port) throws IOException {
+        socket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        System.out.println("Solver service listening on " + socket.getLocalSocketAddress());
+        try {
+            while (!socket.isClosed()) {
+                Socket client;
+                try {
+                    client = socket.accept();
+                } catch (IOException e) {
+                    if (socket.isClosed()) break;
+                    throw e;
+                }
+                client.setTcpNoDelay(true);
+                connections.execute(() -> handle(client));
+            }
+        } finally {
+            close();
+        }
+    }
+
+    void close() {
+        try {
+            if (socket != null) socket.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        connections.shutdown();
+        quick.shutdown();
+        heavy.shutdown();
+        synchronized (this) {
+            if (deals != null) deals.stop();
+        }
+    }
+
+    private void handle(Socket client) {
+        try (client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                out.write(reply(line.trim()));
+                out.write('\n');
+                // Pipelined requests share one flush
+                if (!in.ready()) out.flush();
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    String reply(String line) {
+        String[] w = line.split("\\s+");
+        try {
+            String command = w.length > 1 ? w[0] + " " + w[1] : w[0];
+            return switch (command) {
+                case "sudoku solve" -> sudoku(new SudokuJob(false, parseSudoku(w[2]), 0));
+                case "sudoku hint" -> sudoku(new SudokuJob(true, parseSudoku(w[2]), 0));
+                case "sudoku generate" -> sudoku(new SudokuJob(false, null, parseInt(w[2], 0, 81)));
+                case "klondike solve" -> run(heavy, () -> klondike(w, false));
+                case "klondike hint" -> run(heavy, () -> klondike(w, true));
+                case "klondike generate" -> winnableDeal();
+                case "mines analyze" -> run(quick, () -> mines(w, false));
+                case "mines hint" -> run(quick, () -> mines(w, true));
+                case "mines generate" -> run(quick, () -> generateMines(w));
+                default -> "error unknown request: " + command;
+            };
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return "error missing arguments";
+        } catch (IllegalArgumentException e) {
+            return "error " + e.getMessage();
+        }
+    }
+
+    // Waits for a pool task; busy if the queue is full or the reply takes too long
+    private static String run(ExecutorService pool, Callable<String> task) {
+        Future<String> f;
+        try {
+            f = pool.submit(task);
+        } catch (RejectedExecutionException e) {
+            return "busy";
+        }
+        return await(f);
+    }
+
+    private static String await(Future<String> f) {
+        try {
+            return f.get(REPLY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(true);
+            return "busy";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "busy";
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            return cause instanceof IllegalArgumentException ? "error " + cause.getMessage() : "error " + cause;
+        }
+    }
+
+    // --- Sudoku ---
+
+    private String sudoku(SudokuJob job) {
+        if (!sudokuJobs.offer(job)) return "busy";
+        return await(job.reply);
+    }
+
+    private void batchSudoku() {
+        List<SudokuJob> batch = new ArrayList<>(BATCH);
+        while (true) {
+            try {
+                batch.add(sudokuJobs.take());
+                long deadline = System.nanoTime() + BATCH_WAIT_NANOS;
+                while (batch.size() < BATCH) {
+                    SudokuJob next = sudokuJobs.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<SudokuJob> jobs = new ArrayList<>(batch);
+            batch.clear();
+            submitSudoku(jobs, 0);
+        }
+    }
+
+    private void submitSudoku(List<SudokuJob> jobs, int from) {
+        try {
+            quick.execute(() -> solveSudoku(jobs, from));
+        } catch (RejectedExecutionException e) {
+            for (int i = from; i < jobs.size(); i++) jobs.get(i).reply.complete("busy");
+        }
+    }
+
+    // Solves jobs from index from on, handing what is left back to the pool once the
+    // task has run for BATCH_MAX_MILLIS. Jobs whose caller stopped waiting are skipped.
+    private void solveSudoku(List<SudokuJob> jobs, int from) {
+        long deadline = System.currentTimeMillis() + BATCH_MAX_MILLIS;
+        for (int i = from; i < jobs.size(); i++) {
+            if (i > from && System.currentTimeMillis() > deadline) {
+                submitSudoku(jobs, i);
+                return;
+            }
+            SudokuJob job = jobs.get(i);
+            if (!job.reply.isDone()) job.reply.complete(solveSudoku(job));
+        }
+    }
+
+    static String solveSudoku(SudokuJob job) {
+        if (job.board == null) return "ok " + formatSudoku(Sudoku.generatePuzzle(job.empty));
+        int[][] board = new int[9][];
+        for (int r = 0; r < 9; r++) board[r] = job.board[r].clone();
+        SearchResult.Status status = Sudoku.solve(board, SUDOKU_MAX_NODES);
+        if (status == SearchResult.Status.EXHAUSTED) return "none";
+        if (status == SearchResult.Status.GAVE_UP) return "unknown";
+        if (!job.hint) return "ok " + formatSudoku(board);
+
+        // Hint the most constrained empty cell, the one a person would fill next
+        SudokuState given = SudokuState.of(job.board);
+        int[] moves = new int[9];
+        if (given == null || new SudokuMoves(null).generate(given, moves) == 0) return "none";
+        int cell = moves[0] >> 4;
+        return "ok " + cell / 9 + " " + cell % 9 + " " + board[cell / 9][cell % 9];
+    }
+
+    static int[][] parseSudoku(String s) {
+        if (s.length() != 81) throw new IllegalArgumentException("a sudoku needs 81 cells");
+        int[][] board = new int[9][9];
+        for (int i = 0; i < 81; i++) {
+            char c = s.charAt(i);
+            if (c == '.' || c == '0') continue;
+            if (c < '1' || c > '9') throw new IllegalArgumentException("bad sudoku cell '" + c + "'");
+            board[i / 9][i % 9] = c - '0';
+        }
+        return board;
+    }
+
+    static String formatSudoku(int[][] board) {
+        StringBuilder s = new StringBuilder(81);
+        for (int[] row : board) {
+            for (int d : row) s.append((char) ('0' + d));
+        }
+        return s.toString();
+    }
+
+    // --- Klondike ---
+
+    // The deal after the moves given from w[3] on
+    static KlondikeModel klondikePosition(String[] w) {
+        KlondikeModel m = new KlondikeModel(Long.parseLong(w[2]));
+        for (int i = 3; i < w.length; i++) {
+            int move = Integer.parseInt(w[i]);
+            if (!m.isLegal(move)) throw new IllegalArgumentException("illegal move " + move + " at " + (i - 3));
+            m.make(move);
+        }
+        return m;
+    }
+
+    String klondike(String[] w, boolean hint) {
+        KlondikeModel m = klondikePosition(w);
+        if (m.isWon()) return hint ? "none" : "ok";
+        KlondikeSolver.Result r = klondikeSolvers.get().solve(m);
+        if (r.status == KlondikeSolver.Status.UNWINNABLE) return "none";
+        if (r.status == KlondikeSolver.Status.GAVE_UP) return "unknown";
+        if (hint) return "ok " + r.moves[0];
+        StringBuilder s = new StringBuilder("ok");
+        for (int move : r.moves) s.append(' ').append(move);
+        return s.toString();
+    }
+
+    private String winnableDeal() {
+        KlondikeDealPool pool;
+        synchronized (this) {
+            if (deals == null) {
+                deals = new KlondikeDealPool(null);
+                deals.start(1);
+            }
+            pool = deals;
+        }
+        try {
+            Long deal = pool.ready.poll(REPLY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return deal == null ? "busy" : "ok " + deal;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "busy";
+        }
+    }
+
+    // --- Minesweeper ---
+
+    static MineTopology topology(String shape, String rows, String cols) {
+        int r = parseInt(rows, 1, 1000), c = parseInt(cols, 1, 1000);
+        return switch (shape) {
+            case "square" -> MineTopology.square(r, c);
+            case "torus" -> MineTopology.torus(r, c);
+            case "hex" -> MineTopology.hex(r, c);
+            default -> throw new IllegalArgumentException("unknown shape " + shape);
+        };
+    }
+
+    String mines(String[] w, boolean hint) {
+        MineTopology topo = topology(w[2], w[3], w[4]);
+        String s = w[5];
+        if (s.length() != topo.size()) throw new IllegalArgumentException("expected " + topo.size() + " cells");
+        int[] cells = new int[topo.size()];
+        for (int i = 0; i < cells.length; i++) {
+            char c = s.charAt(i);
+            if (c == '#') cells[i] = MineSolver.HIDDEN;
+            else if (c >= '0' && c <= '8') cells[i] = c - '0';
+            else throw new IllegalArgumentException("bad mines cell '" + c + "'");
+        }
+        MineSolver.Analysis a = mineSolvers.get().analyze(topo, cells);
+        // A sure-safe cell from the components that were solved is still a right hint
+        if (!a.complete && (!hint || a.safe.isEmpty())) return "unknown";
+        if (!hint) return "ok safe=" + join(a.safe) + " mines=" + join(a.mines);
+
+        if (!a.safe.isEmpty()) return "ok " + a.safe.get(0) + " 0";
+        // No sure cell: the frontier cell least likely to be a mine, else any hidden one
+        int pick = -1;
+        double best = 2;
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != MineSolver.HIDDEN) continue;
+            double p = Double.isNaN(a.probability[i]) ? 2 : a.probability[i]; // off the frontier: unknown
+            if (pick < 0 || p < best) {
+                pick = i;
+                best = p;
+            }
+        }
+        if (pick < 0) return "none";
+        return best > 1 ? "ok " + pick + " ?" : String.format("ok %d %.3f", pick, best);
+    }
+
+    static String generateMines(String[] w) {
+        MineTopology topo = topology(w[2], w[3], w[4]);
+        int n = topo.size();
+        int mines = parseInt(w[5], 0, n);
+        Random random = w.length > 6 ? new Random(Long.parseLong(w[6])) : new Random();
+        char[] cells = new char[n];
+        Arrays.fill(cells, '.');
+        for (int placed = 0; placed < mines; ) {
+            int i = random.nextInt(n);
+            if (cells[i] == '.') {
+                cells[i] = '*';
+                placed++;
+            }
+        }
+        return "ok " + new String(cells);
+    }
+
+    static String join(List<Integer> cells) {
+        if (cells.isEmpty()) return "-";
+        StringBuilder s = new StringBuilder();
+        for (int c : cells) {
+            if (s.length() > 0) s.append(',');
+            s.append(c);
+        }
+        return s.toString();
+    }
+
+    static int parseInt(String s, int min, int max) {
+        int v = Integer.parseInt(s);
+        if (v < min || v > max) throw new IllegalArgumentException(s + " is outside " + min + ".." + max);
+        return v;
+    }
+}
@@ -1,7 +1,5 @@
 // filepath: /sudoku-java/sudoku-java/src/Sudoku.java
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Random;
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
@@ -38,46 +36,30 @@ public class Sudoku {
     }
 
     public static boolean solve(int[][] board) {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (board[row][col] == 0) {
-                    for (int num = 1; num <= SIZE; num++) {
-                        if (isValid(board, row, col, num)) {
-                            board[row][col] = num;
-                            if (solve(board))
-                                return true;
-                            board[row][col] = 0;
-                        }
-                    }
-                    return false;
-                }
-            }
-        }
-        return true;
+        return search(board, null, Long.MAX_VALUE) == SearchResult.Status.SOLVED;
+    }
+
+    // As solve, but gives up after maxNodes search nodes: SOLVED, EXHAUSTED if there is
+    // no solution, or GAVE_UP with board unchanged
+    public static SearchResult.Status solve(int[][] board, long maxNodes) {
+        return search(board, null, maxNodes);
     }
 
     public static boolean fillBoard(int[][] board) {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (board[row][col] == 0) {
-                    ArrayList<Integer> nums = new ArrayList<>();
-                    for (int num = 1; num <= SIZE; num++) {
-                        nums.add(num);
-                    }
-                    Collections.shuffle(nums);
-                    for (int num : nums) {
-                        if (isValid(board, row, col, num)) {
-                            board[row][col] = num;
-                            if (fillBoard(board))
-                                return true;
-                            board[row][col] = 0;
-                        }
-                    }
-                    return false;
-                }
-            }
-        }
-        return true;
+        return search(board, new Random(), Long.MAX_VALUE) == SearchResult.Status.SOLVED;
+    }
+
+    // Fills board in place through DepthFirstSearch; random shuffles the digits tried
+    static SearchResult.Status search(int[][] board, Random random, long maxNodes) {
+        SudokuState state = SudokuState.of(board);
+        if (state == null) return SearchResult.Status.EXHAUSTED;
+        DepthFirstSearch<SudokuState> dfs = new DepthFirstSearch<>(new SudokuMoves(random));
+        dfs.maxMoves = SIZE;
+        dfs.maxNodes = maxNodes;
+        SearchResult.Status status = dfs.solve(state).status;
+        if (status != SearchResult.Status.SOLVED) return status;
+        for (int i = 0; i < SIZE * SIZE; i++) board[i / SIZE][i % SIZE] = state.cells[i];
+        return status;
     }
 
     public static int[][] generatePuzzle(int emptyCells) {
@@ -0,0 +1,38 @@
+import java.util.Random;
+
+// Fills in the empty cell with the fewest candidates, so forced cells come first and a
+// cell with none fails at once
+final class SudokuMoves implements MoveGenerator<SudokuState> {
+    private final Random random; // null: digits in order
+
+    SudokuMoves(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public int generate(SudokuState s, int[] out) {
+        int best = -1, bestCount = 10;
+        for (int i = 0; i < 81 && bestCount > 1; i++) {
+            if (s.cells[i] != 0) continue;
+            int count = Integer.bitCount(s.candidates(i));
+            if (count < bestCount) {
+                best = i;
+                bestCount = count;
+            }
+        }
+        if (best < 0) return 0;
+        int n = 0;
+        for (int bits = s.candidates(best); bits != 0; bits &= bits - 1) {
+            out[n++] = best * 16 + Integer.numberOfTrailingZeros(bits);
+        }
+        if (random != null) {
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = out[i];
+                out[i] = out[j];
+                out[j] = t;
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,67 @@
+// Sudoku grid as a GameState. A move is cell * 16 + digit; row, column and box masks
+// make checking a digit a few bit tests.
+final class SudokuState implements GameState {
+    final int[] cells = new int[81];
+    final int[] rows = new int[9], cols = new int[9], boxes = new int[9];
+    int empty = 81;
+    long hash;
+
+    // null if the givens already break a rule
+    static SudokuState of(int[][] board) {
+        SudokuState s = new SudokuState();
+        for (int i = 0; i < 81; i++) {
+            int d = board[i / 9][i % 9];
+            if (d == 0) continue;
+            if (d < 0 || d > 9 || !s.allows(i, d)) return null;
+            s.make(i * 16 + d);
+        }
+        return s;
+    }
+
+    static int box(int cell) {
+        return cell / 27 * 3 + cell % 9 / 3;
+    }
+
+    boolean allows(int cell, int d) {
+        int bit = 1 << d;
+        return ((rows[cell / 9] | cols[cell % 9] | boxes[box(cell)]) & bit) == 0;
+    }
+
+    // Bits 1..9 set for the digits cell can still take
+    int candidates(int cell) {
+        return ~(rows[cell / 9] | cols[cell % 9] | boxes[box(cell)]) & 0x3fe;
+    }
+
+    @Override
+    public long hash() {
+        return hash;
+    }
+
+    @Override
+    public boolean isGoal() {
+        return empty == 0;
+    }
+
+    @Override
+    public int make(int move) {
+        int cell = move >> 4, d = move & 15, bit = 1 << d;
+        cells[cell] = d;
+        rows[cell / 9] |= bit;
+        cols[cell % 9] |= bit;
+        boxes[box(cell)] |= bit;
+        empty--;
+        hash ^= LongHashSet.mix(move);
+        return 0;
+    }
+
+    @Override
+    public void unmake(int move, int token) {
+        int cell = move >> 4, d = move & 15, bit = ~(1 << d);
+        cells[cell] = 0;
+        rows[cell / 9] &= bit;
+        cols[cell % 9] &= bit;
+        boxes[box(cell)] &= bit;
+        empty++;
+        hash ^= LongHashSet.mix(move);
+    }
+}
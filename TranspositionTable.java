@@ -0,0 +1,88 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+// Fixed-size, lossy transposition table for game-tree searches keyed by 64-bit state
+// hashes. The table is a power-of-two number of two-entry buckets; the first entry of a
+// bucket keeps the deepest search seen, the second is always replaced. Entries are two
+// longs, (hash ^ data, data), so a torn or colliding write fails the key check instead
+// of returning another position's data. That also makes unsynchronized use from several
+// threads safe: racing writers can lose an entry, never corrupt one. Backed by a long[]
+// or by direct (off-heap) memory; either way the size never grows past what the
+// constructor was given (at most 1 GB).
+class TranspositionTable {
+    // Bounds: EXACT = searched completely, LOWER / UPPER = value is a bound only
+    static final int EXACT = 1, LOWER = 2, UPPER = 3;
+
+    static final int LONGS_PER_BUCKET = 4;
+    static final int BYTES_PER_BUCKET = LONGS_PER_BUCKET * Long.BYTES;
+
+    private final LongBuffer table;
+    private final int buckets;
+    private final int mask;
+
+    TranspositionTable(int megabytes, boolean offHeap) {
+        long bytes = Math.max(1, megabytes) * (1L << 20);
+        int n = Integer.highestOneBit((int) Math.min(1 << 25, bytes / BYTES_PER_BUCKET));
+        buckets = n;
+        mask = n - 1;
+        table = offHeap
+                ? ByteBuffer.allocateDirect(n * BYTES_PER_BUCKET).order(ByteOrder.nativeOrder()).asLongBuffer()
+                : LongBuffer.wrap(new long[n * LONGS_PER_BUCKET]);
+    }
+
+    // data: move (16 bits) | depth (8) | bound (2) | value (32, signed)
+    static long pack(int move, int depth, int bound, int value) {
+        return (move & 0xffffL) | (long) (depth & 0xff) << 16 | (long) bound << 24 | (long) value << 32;
+    }
+
+    static int move(long data) { return (int) data & 0xffff; }
+    static int depth(long data) { return (int) (data >>> 16) & 0xff; }
+    static int bound(long data) { return (int) (data >>> 24) & 3; }
+    static int value(long data) { return (int) (data >> 32); }
+
+    int capacity() {
+        return buckets * 2;
+    }
+
+    long bytes() {
+        return (long) buckets * BYTES_PER_BUCKET;
+    }
+
+    private int bucket(long hash) {
+        return LongHashSet.slot(hash, mask) * LONGS_PER_BUCKET;
+    }
+
+    // Packed data stored for hash, or 0 if the table does not hold it
+    long probe(long hash) {
+        int b = bucket(hash);
+        for (int i = b; i < b + LONGS_PER_BUCKET; i += 2) {
+            long data = table.get(i + 1);
+            if (data != 0 && (table.get(i) ^ data) == hash) return data;
+        }
+        return 0;
+    }
+
+    void store(long hash, int move, int depth, int bound, int value) {
+        long data = pack(move, depth, bound, value);
+        int b = bucket(hash);
+        long deepData = table.get(b + 1);
+        boolean sameDeep = deepData != 0 && (table.get(b) ^ deepData) == hash;
+        if (sameDeep || deepData == 0 || depth >= depth(deepData)) {
+            // A displaced deep entry still gets a chance in the always-replace slot
+            if (!sameDeep && deepData != 0) {
+                table.put(b + 2, table.get(b));
+                table.put(b + 3, deepData);
+            }
+            table.put(b, hash ^ data);
+            table.put(b + 1, data);
+        } else {
+            table.put(b + 2, hash ^ data);
+            table.put(b + 3, data);
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < buckets * LONGS_PER_BUCKET; i++) table.put(i, 0);
+    }
+}
@@ -1,319 +1,49 @@
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.*;
 
-// Card class
-class Card implements Serializable{
-    enum Suit {HEARTS, DIAMONDS, CLUBS, SPADES}
-    int rank; // 1=Ace, 11=Jack, 12=Queen, 13=King
-    Suit suit;
-    boolean faceUp;
-
-    Card(int r, Suit s) {
-        rank = r;
-        suit = s;
-        faceUp = false;
-    }
-
-    boolean isRed() {
-        return suit == Suit.HEARTS || suit == Suit.DIAMONDS;
-    }
-
-    @Override
-    public String toString() {
-        String r = switch(rank) {
-            case 1 -> "A"; case 11 -> "J"; case 12 -> "Q"; case 13 -> "K";
-            default -> String.valueOf(rank);
-        };
-        return r + switch(suit) {
-            case HEARTS -> "♥";
-            case DIAMONDS -> "♦";
-            case CLUBS -> "♣";
-            case SPADES -> "♠";
-        };
-    }
-}
-
-// Pile interface
-interface Pile {
-    List<Card> getCards();
-    void addCard(Card c);
-    Card removeTopCard();
-    Card topCard();
-    boolean isEmpty();
-}
-
-// Simple implementation of pile
-class SimplePile implements Pile,Serializable {
-    protected LinkedList<Card> cards = new LinkedList<>();
-
-    @Override
-    public List<Card> getCards() { return cards; }
-    @Override
-    public void addCard(Card c) { cards.add(c); }
-    @Override
-    public Card removeTopCard() { return cards.isEmpty() ? null : cards.removeLast(); }
-    @Override
-    public Card topCard() { return cards.isEmpty() ? null : cards.getLast(); }
-    @Override
-    public boolean isEmpty() { return cards.isEmpty(); }
-    public int size() { return cards.size(); }
-}
-
-// Tableau pile
-class TableauPile extends SimplePile {
-    // Validate if a card (or sequence) can be placed on this pile
-    boolean canPlace(Card c) {
-        if (isEmpty()) return c.rank == 13; // Only King can start empty tableau
-        Card top = topCard();
-        return top.faceUp && top.rank == c.rank + 1 && top.isRed() != c.isRed();
-    }
-}
-
-// Foundation pile
-class FoundationPile extends SimplePile {
-    Card.Suit suit;
-
-    FoundationPile(Card.Suit s) { suit = s; }
-
-    boolean canPlace(Card c) {
-        if (c.suit != suit) return false;
-        if (isEmpty()) return c.rank == 1; // Ace start foundation
-        Card top = topCard();
-        return c.rank == top.rank + 1;
-    }
-}
-
-// Stock pile
-class StockPile extends SimplePile {
-    int recycleCount = 0;
-    final int maxRecycles = 3;
-
-    // Draw card to waste
-    Card draw() {
-        if (cards.isEmpty()) return null;
-        return removeTopCard();
-    }
-
-    boolean canRecycle() {
-        return recycleCount < maxRecycles;
-    }
-
-    void recycle(LinkedList<Card> waste) {
-        if (!canRecycle()) return;
-        while (!waste.isEmpty()) {
-            Card c = waste.removeLast();
-            c.faceUp = false;
-            addCard(c);
-        }
-        recycleCount++;
-    }
-}
-
-// Waste pile
-class WastePile extends SimplePile {}
-
-// Game model holding all piles and rules
-class KlondikeModel implements Cloneable,Serializable{
-    TableauPile[] tableau = new TableauPile[7];
-    FoundationPile[] foundation = new FoundationPile[4];
-    StockPile stock = new StockPile();
-    WastePile waste = new WastePile();
-
-    public String getStateHash() {
-    try {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(baos);
-        oos.writeObject(this);
-        oos.close();
-        return Base64.getEncoder().encodeToString(baos.toByteArray());
-    } catch (IOException e) {
-        throw new RuntimeException("Unable to compute state hash", e);
-    }
-}
-
-
-    // Constructor - initialize deck, shuffle, deal cards
-    KlondikeModel() {
-        for (int i = 0; i < 7; i++) tableau[i] = new TableauPile();
-        foundation[0] = new FoundationPile(Card.Suit.HEARTS);
-        foundation[1] = new FoundationPile(Card.Suit.DIAMONDS);
-        foundation[2] = new FoundationPile(Card.Suit.CLUBS);
-        foundation[3] = new FoundationPile(Card.Suit.SPADES);
-
-        List<Card> deck = new ArrayList<>();
-        for (Card.Suit s : Card.Suit.values())
-            for (int r = 1; r <= 13; r++)
-                deck.add(new Card(r, s));
-
-        Collections.shuffle(deck);
-        
-        // Deal cards to tableau
-        int index = 0;
-        for (int i = 0; i < 7; i++) {
-            for (int j = 0; j <= i; j++) {
-                Card c = deck.get(index++);
-                tableau[i].addCard(c);
-                c.faceUp = (j == i);
-            }
-        }
-        // Remaining to stock
-        for (; index < deck.size(); index++)
-            stock.addCard(deck.get(index));
-    }
-
-    // Move card from tableau to foundation, or tableau to tableau, waste to tableau/foundation, etc.
-    boolean moveTableauToFoundation(int tabIndex, int foundationIndex) {
-        TableauPile t = tableau[tabIndex];
-        FoundationPile f = foundation[foundationIndex];
-        if (t.isEmpty()) return false;
-        Card c = t.topCard();
-        if (!c.faceUp) return false;
-        if (f.canPlace(c)) {
-            f.addCard(t.removeTopCard());
-            flipTopTableau(tabIndex);
-            return true;
-        }
-        return false;
-    }
-
-    boolean moveWasteToFoundation(int foundationIndex) {
-        if (waste.isEmpty()) return false;
-        Card c = waste.topCard();
-        FoundationPile f = foundation[foundationIndex];
-        if (f.canPlace(c)) {
-            waste.removeTopCard();
-            f.addCard(c);
-            return true;
-        }
-        return false;
-    }
-
-    boolean moveWasteToTableau(int tabIndex) {
-        if (waste.isEmpty()) return false;
-        Card c = waste.topCard();
-        TableauPile t = tableau[tabIndex];
-        if (t.canPlace(c)) {
-            waste.removeTopCard();
-            t.addCard(c);
-            return true;
-        }
-        return false;
-    }
-
-    boolean moveTableauToTableau(int fromIndex, int toIndex, int startCardIndex) {
-        TableauPile from = tableau[fromIndex];
-        TableauPile to = tableau[toIndex];
-        if (from.isEmpty()) return false;
-
-        // Cards sequence from startCardIndex to end must be faceUp and valid sequence
-        List<Card> cards = from.getCards();
-        if (startCardIndex < 0 || startCardIndex >= cards.size()) return false;
-        if (!cards.get(startCardIndex).faceUp) return false;
-
-        // Validate sequence descending rank alternating colors
-        for (int i = startCardIndex; i < cards.size() - 1; i++) {
-            Card c1 = cards.get(i);
-            Card c2 = cards.get(i + 1);
-            if (!(c1.rank == c2.rank + 1 && c1.isRed() != c2.isRed()))
-                return false;
-        }
-
-        Card firstCard = cards.get(startCardIndex);
-        if (to.isEmpty()) {
-            if (firstCard.rank != 13) return false; // must start with King
-        } else {
-            Card top = to.topCard();
-            if (!(top.rank == firstCard.rank + 1 && top.isRed() != firstCard.isRed() && top.faceUp)) return false;
-        }
-
-        // Move sequence cards
-        List<Card> toMove = new ArrayList<>(cards.subList(startCardIndex, cards.size()));
-        for (int i = cards.size() - 1; i >= startCardIndex; i--) {
-            from.removeTopCard();
-        }
-        to.getCards().addAll(toMove);
-
-        flipTopTableau(fromIndex);
-        return true;
-    }
-
-    boolean flipTopTableau(int tabIndex) {
-        TableauPile t = tableau[tabIndex];
-        if (!t.isEmpty()) {
-            Card c = t.topCard();
-            if (!c.faceUp) {
-                c.faceUp = true;
-                return true;
-            }
-        }
-        return false;
-    }
-
-    // Draw from stock to waste
-    boolean drawFromStock() {
-        if (stock.isEmpty()) return false;
-        Card c = stock.draw();
-        c.faceUp = true;
-        waste.addCard(c);
-        return true;
-    }
-
-    // Recycle waste into stock if possible
-    boolean recycleStock() {
-        if (!stock.canRecycle()) return false;
-        stock.recycle(waste.cards);
-        return true;
-    }
-
-    // Check if game won
-    boolean isWon() {
-        for (FoundationPile f : foundation) {
-            if (f.size() != 13) return false;
-        }
-        return true;
-    }
-
-    public KlondikeModel clone() {
-        try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(baos);
-            oos.writeObject(this);
-            oos.close();
-
-            ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-            ObjectInputStream ois = new ObjectInputStream(bais);
-            return (KlondikeModel) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            throw new RuntimeException("Failed to clone game state", e);
-        }
-    }
-}
-
-// GUI for cards
+// GUI for cards; one button per card id lives for the whole session. Never serialized.
+@SuppressWarnings("serial")
 class CardButton extends JButton {
-    Card card;
+    static final Font FONT = new Font("SansSerif", Font.BOLD, 18);
+    static final Color NORMAL = UIManager.getColor("Button.background");
+
+    final Card card;
+    boolean faceUp;
 
     CardButton(Card c) {
         this.card = c;
         updateText();
         setMargin(new Insets(0,0,0,0));
         setPreferredSize(new Dimension(60, 90));
-        setFont(new Font("SansSerif", Font.BOLD, 18));
+        setFont(FONT);
+    }
+
+    void setFaceUp(boolean up) {
+        if (faceUp == up) return;
+        faceUp = up;
+        updateText();
     }
 
     void updateText() {
-        setText(card.faceUp ? card.toString() : "X");
-        setForeground(card.faceUp ? (card.isRed() ? Color.RED : Color.BLACK) : Color.GRAY);
+        setText(faceUp ? card.toString() : "X");
+        setForeground(faceUp ? (card.isRed() ? Color.RED : Color.BLACK) : Color.GRAY);
     }
 }
 
 // Main GUI class
 public class ks extends JFrame {
     KlondikeModel model;
-    Stack<KlondikeModel> undoStack = new Stack<>();
+    MoveJournal journal = new MoveJournal();
     JPanel stockPanel = new JPanel();
     JPanel wastePanel = new JPanel();
     JPanel foundationPanel = new JPanel();
@@ -323,7 +53,21 @@ public class ks extends JFrame {
     JButton btnRecycle = new JButton("Recycle");
     JButton btnHint = new JButton("Hint");
     JButton btnUndo = new JButton("Undo");
+    JButton btnRedo = new JButton("Redo");
     JButton btnNewGame = new JButton("New Game");
+    JButton btnAutoComplete = new JButton("Auto-complete");
+    JCheckBox chkNoPeeking = new JCheckBox("No peeking");
+    JCheckBox chkWinnableOnly = new JCheckBox("Winnable deals only");
+
+    // Retained board: components are created once and moved between piles as cards move
+    final CardButton[] cardButtons = new CardButton[52];
+    final JButton stockBtn = new JButton();
+    final JLabel wasteEmpty = new JLabel("Waste empty");
+    final JPanel[] foundationSlots = new JPanel[4];
+    final JButton[] foundationEmpty = new JButton[4];
+    final JLayeredPane[] columns = new JLayeredPane[7];
+    final JButton[] columnEmpty = new JButton[7];
+    CardButton highlighted; // card currently drawn as selected
 
 
     // Track selected cards for moves
@@ -331,16 +75,71 @@ public class ks extends JFrame {
     int selectedCardIndex = -1; // For tableau sequences
     boolean wasteSelected = false;
 
-    String lastMove = null;   // actual move done
+    int lastMove = KlondikeModel.NO_MOVE;   // actual move done
     String lastHint = null;   // last hint shown
 
-    private void saveState() {
-        undoStack.push(model.clone());
+    // Hints are searched speculatively on a background thread after every change to the
+    // model. Each search works on a snapshot and is tagged with the hint version current
+    // when it started; bumping the version cancels it.
+    static final class HintResult {
+        final int version;
+        final String text;
+
+        HintResult(int version, String text) {
+            this.version = version;
+            this.text = text;
+        }
+    }
+
+    final ExecutorService hintExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "klondike-hints");
+        t.setDaemon(true);
+        return t;
+    });
+    final KlondikeHints hints = new KlondikeHints();          // hint thread only
+    // The follow-up solve runs inline on the hint thread with a small budget, so it keeps
+    // neither extra threads nor a large table for the session
+    static final int HINT_SOLVE_NODES = 200_000;
+    static final long HINT_SOLVE_MILLIS = 1_500;
+    static final int HINT_SOLVE_TABLE_MB = 8;
+    final ParallelKlondikeSolver hintSolver = new ParallelKlondikeSolver(1, HINT_SOLVE_NODES, HINT_SOLVE_MILLIS); // hint thread only
+    final KlondikeRollouts rollouts = new KlondikeRollouts(); // hint thread only
+    volatile int hintVersion;
+    volatile HintResult hintResult;
+
+    // Make a move if it is legal and record it for undo
+    boolean play(int move) {
+        if (!model.isLegal(move)) return false;
+        journal.record(move, model.make(move));
+        lastMove = move;
+        return true;
+    }
+
+    void clearSelection() {
+        selectedTableauIndex = -1;
+        selectedCardIndex = -1;
+        wasteSelected = false;
     }
+    // The game in progress is saved on exit and resumed on the next start
+    static final Path SAVE_FILE = Paths.get(System.getProperty("user.home"), ".klondike-save.bin");
+    static final Path PROOF_FILE = Paths.get(System.getProperty("user.home"), ".klondike-proofs.bin");
+    KlondikeDealPool dealPool; // started by "Winnable deals only"
+
     public ks() {
-        model = new KlondikeModel();
+        try {
+            model = Files.exists(SAVE_FILE) ? KlondikeSnapshot.load(SAVE_FILE, journal) : new KlondikeModel();
+            // A finished game is not resumed
+            if (model.isWon()) {
+                journal.clear();
+                model = new KlondikeModel();
+            }
+            lastMove = journal.lastMove();
+        } catch (IOException e) {
+            journal.clear();
+            model = new KlondikeModel();
+        }
 
-        setTitle("Klondike Solitaire");
+        setTitle("Klondike Solitaire - Deal " + model.deal);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setSize(800, 600);
         setLayout(new BorderLayout());
@@ -365,13 +164,16 @@ public class ks extends JFrame {
         bottomPanel.add(btnRecycle);
         bottomPanel.add(btnHint);
         bottomPanel.add(btnUndo);
+        bottomPanel.add(btnRedo);
         bottomPanel.add(btnNewGame);
+        bottomPanel.add(btnAutoComplete);
+        bottomPanel.add(chkNoPeeking);
+        bottomPanel.add(chkWinnableOnly);
 
         add(bottomPanel, BorderLayout.SOUTH);
 
         btnDraw.addActionListener(e -> {
-            saveState();
-            if (model.drawFromStock()) {
+            if (play(KlondikeModel.DRAW_MOVE)) {
                 refresh();
             } else {
                 JOptionPane.showMessageDialog(this, "Stock empty. Use Recycle if available.");
@@ -379,8 +181,7 @@ public class ks extends JFrame {
         });
 
         btnRecycle.addActionListener(e -> {
-            saveState();
-            if (model.recycleStock()) {
+            if (play(KlondikeModel.RECYCLE_MOVE)) {
                 refresh();
             } else {
                 JOptionPane.showMessageDialog(this, "No more recycles left.");
@@ -389,426 +190,372 @@ public class ks extends JFrame {
 
         btnHint.addActionListener(e -> {
             String hint = getHint();
-            JOptionPane.showMessageDialog(this, hint == null ? "No moves found." : "Hint: " + hint);
+            JOptionPane.showMessageDialog(this, hint == null ? "Still looking for a hint, try again in a moment." : "Hint: " + hint);
         });
         
+        // Plays every remaining card home and redraws the board once
+        btnAutoComplete.addActionListener(e -> {
+            if (!model.canAutoComplete()) return;
+            int[] moves = new int[52];
+            int n = model.autoCompleteMoves(moves);
+            for (int i = 0; i < n; i++) play(moves[i]);
+            clearSelection();
+            refresh();
+        });
+
+        chkNoPeeking.setToolTipText("Hints only use cards you can see");
+        chkNoPeeking.addActionListener(e -> startHintSearch());
+
         btnUndo.addActionListener(e -> {
-    if (!undoStack.isEmpty()) {
-        model = undoStack.pop();
-        selectedTableauIndex = -1;
-        selectedCardIndex = -1;
-        wasteSelected = false;
+    if (journal.canUndo()) {
+        journal.undo(model);
+        lastMove = journal.lastMove();
+        clearSelection();
         refresh();
     } else {
         JOptionPane.showMessageDialog(this, "No moves to undo.");
     }
 });
 
+        btnRedo.addActionListener(e -> {
+    if (journal.canRedo()) {
+        lastMove = journal.redo(model);
+        clearSelection();
+        refresh();
+    } else {
+        JOptionPane.showMessageDialog(this, "No moves to redo.");
+    }
+});
+
+        // The solver pool only starts once the player asks for winnable deals
+        chkWinnableOnly.addActionListener(e -> {
+            if (chkWinnableOnly.isSelected() && dealPool == null) {
+                dealPool = new KlondikeDealPool(KlondikeDealPool.openProofs(PROOF_FILE));
+                dealPool.start(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+            }
+        });
+
     btnNewGame.addActionListener(e -> {
-    model = new KlondikeModel();
-    undoStack.clear();
-    selectedTableauIndex = -1;
-    selectedCardIndex = -1;
-    wasteSelected = false;
+    Long winnable = chkWinnableOnly.isSelected() && dealPool != null ? dealPool.poll() : null;
+    if (chkWinnableOnly.isSelected() && winnable == null) {
+        JOptionPane.showMessageDialog(this, "No winnable deal is ready yet; dealing at random.");
+    }
+    model = winnable != null ? new KlondikeModel(winnable) : new KlondikeModel();
+    journal.clear();
+    lastMove = KlondikeModel.NO_MOVE;
+    setTitle("Klondike Solitaire - Deal " + model.deal + (winnable != null ? " (winnable)" : ""));
+    clearSelection();
     refresh();
 });
 
 
 
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                try {
+                    KlondikeSnapshot.save(SAVE_FILE, model, journal);
+                } catch (IOException ex) {
+                    System.err.println("Could not save game: " + ex.getMessage());
+                }
+            }
+        });
+
+        buildBoard();
         refresh();
     }
 
-    void refresh() {
-        stockPanel.removeAll();
-        wastePanel.removeAll();
-        foundationPanel.removeAll();
-        tableauPanel.removeAll();
-
-        // Stock pile button
-        JButton stockBtn = new JButton("Stock (" + model.stock.size() + ")");
-        stockBtn.setEnabled(!model.stock.isEmpty());
+    // Create every board component once; refresh() only rearranges them
+    void buildBoard() {
+        for (int id = 0; id < 52; id++) {
+            CardButton cb = new CardButton(model.card(id));
+            int card = id;
+            cb.addActionListener(e -> cardClicked(card));
+            cardButtons[id] = cb;
+        }
+
         stockBtn.addActionListener(e -> {
-            if (model.drawFromStock()) refresh();
+            if (play(KlondikeModel.DRAW_MOVE)) refresh();
         });
         stockPanel.add(stockBtn);
 
-        // Waste pile (top card only)
-        if (!model.waste.isEmpty()) {
-            Card wasteTop = model.waste.topCard();
-            CardButton wasteBtn = new CardButton(wasteTop);
-            wasteBtn.addActionListener(e -> {
-                wasteSelected = !wasteSelected;
-                selectedTableauIndex = -1;
-                selectedCardIndex = -1;
-                refresh();
-            });
-            if (wasteSelected) wasteBtn.setBackground(Color.YELLOW);
-            wastePanel.add(wasteBtn);
-        } else {
-            wastePanel.add(new JLabel("Waste empty"));
-        }
-
-        // Foundations
         for (int i = 0; i < 4; i++) {
-            FoundationPile f = model.foundation[i];
-            JButton fbtn;
-            if (f.isEmpty()) fbtn = new JButton("Empty");
-            else fbtn = new CardButton(f.topCard());
             int idx = i;
-            fbtn.addActionListener(e -> {
-                if (wasteSelected) {
-                    saveState();
-                    if (model.moveWasteToFoundation(idx)) {
-                        wasteSelected = false;
-                        refresh();
-                    }
-                } else if (selectedTableauIndex != -1) {
-                    saveState();
-                    if (model.moveTableauToFoundation(selectedTableauIndex, idx)) {
-                        selectedTableauIndex = -1;
-                        selectedCardIndex = -1;
-                        refresh();
-                    }
-                }
-            });
-            foundationPanel.add(fbtn);
+            foundationEmpty[i] = new JButton("Empty");
+            foundationEmpty[i].addActionListener(e -> foundationClicked(idx));
+            foundationSlots[i] = new JPanel(new BorderLayout());
+            foundationPanel.add(foundationSlots[i]);
         }
 
-        // Tableau piles using JLayeredPane for overlapping cards
-for (int i = 0; i < 7; i++) {
-    final int ti = i;
-    JLayeredPane layeredPile = new JLayeredPane();
-    layeredPile.setPreferredSize(new Dimension(60, 400)); // enough height for stacked cards
-    layeredPile.setLayout(null); // important for absolute positioning
-
-    TableauPile t = model.tableau[i];
-    List<Card> cards = t.getCards();
-
-    if (cards.isEmpty()) {
-        JButton emptyBtn = new JButton("Empty");
-        emptyBtn.setBounds(0, 0, 60, 90);
-        int vi = i;
-        emptyBtn.addActionListener(e -> {
-            if (wasteSelected) {
-                saveState();
-                if (model.moveWasteToTableau(vi)) {
-                    wasteSelected = false;
-                    refresh();
-                }
-            } else if (selectedTableauIndex != -1) {
-                saveState();
-                if (model.moveTableauToTableau(selectedTableauIndex, vi, selectedCardIndex)) {
-                    selectedTableauIndex = -1;
-                    selectedCardIndex = -1;
-                    refresh();
-                }
-            }
-        });
-        layeredPile.add(emptyBtn, Integer.valueOf(0));
-    } else {
-        int yOffset = 0;
-        for (int j = 0; j < cards.size(); j++) {
-            Card c = cards.get(j);
-            CardButton cb = new CardButton(c);
-            cb.setBounds(0, yOffset, 60, 90);
-            int ui = i, ci = j;
-
-            cb.addActionListener(e -> {
-                if (wasteSelected) {
-                    saveState();
-                    if (model.moveWasteToTableau(ui)) {
-                        wasteSelected = false;
-                        refresh();
-                    }
-                } else if (selectedTableauIndex == -1) {
-                    if (c.faceUp) {
-                        selectedTableauIndex = ui;
-                        selectedCardIndex = ci;
-                    }
-                    refresh();
-                } else {
-                    saveState();
-                    if (model.moveTableauToTableau(selectedTableauIndex, ui, selectedCardIndex)) {
-                        selectedTableauIndex = -1;
-                        selectedCardIndex = -1;
-                        refresh();
-                    } else {
-                        if (selectedTableauIndex == ui) {
-                            selectedTableauIndex = -1;
-                            selectedCardIndex = -1;
-                            refresh();
-                        }
-                    }
-                }
-            });
-
-            if (i == selectedTableauIndex && j == selectedCardIndex) {
-                cb.setBackground(Color.CYAN);
-            }
-
-            layeredPile.add(cb, Integer.valueOf(j));
-            yOffset += c.faceUp ? 50 : 10;
+        for (int i = 0; i < 7; i++) {
+            int vi = i;
+            columns[i] = new JLayeredPane();
+            columns[i].setPreferredSize(new Dimension(60, 400)); // enough height for stacked cards
+            columns[i].setLayout(null); // important for absolute positioning
+            columnEmpty[i] = new JButton("Empty");
+            columnEmpty[i].setBounds(0, 0, 60, 90);
+            columnEmpty[i].addActionListener(e -> emptyColumnClicked(vi));
+            tableauPanel.add(columns[i]);
         }
     }
 
-    tableauPanel.add(layeredPile);
-}
-
-
-        revalidate();
-        repaint();
+    // Bring the piles the model reports as changed up to date; the rest are left alone
+    void refresh() {
+        int dirty = model.takeDirty();
+        if (dirty != 0) startHintSearch();
 
-        if (model.isWon()) {
-            JOptionPane.showMessageDialog(this, "Congratulations! You won!");
+        if ((dirty & 1 << KlondikeModel.STOCK) != 0) {
+            stockBtn.setText("Stock (" + model.stock.size() + ")");
+            stockBtn.setEnabled(!model.stock.isEmpty());
         }
-    }
-
-    private JButton createPlaceholderButton() {
-    JButton empty = new JButton();
-    empty.setPreferredSize(new Dimension(60, 90));
-    empty.setEnabled(false);
-    empty.setBackground(Color.LIGHT_GRAY);
-    empty.setOpaque(true);
-    empty.setBorder(BorderFactory.createLineBorder(Color.GRAY));
-    return empty;
-}
-
-    boolean isReverseOfLastMove(String hint, String lastMove) {
-    if (hint == null || lastMove == null) return false;
-
-    // Very basic reversals, expand for more detail
-    if (hint.equalsIgnoreCase(reverseHint(lastMove))) return true;
-    return false;
-}
 
-String reverseHint(String move) {
-    if (move == null) return null;
-
-    if (move.startsWith("Move waste to tableau ")) {
-        String num = move.replace("Move waste to tableau ", "");
-        return "Move tableau " + num + " to waste";
-    }
-    if (move.startsWith("Move tableau") && move.contains("to waste")) {
-        String num = move.replace("Move tableau ", "").replace(" to waste", "");
-        return "Move waste to tableau " + num;
-    }
-    if (move.startsWith("Move cards from tableau ")) {
-        String[] parts = move.split(" ");
-        return "Move cards from tableau " + parts[5] + " to tableau " + parts[3];
-    }
-
-    return "";
-}
-
-
-    String getHint() {
-    Set<String> visited = new HashSet<>();
-    String hint = dfs(model, visited, 0);
-
-    // If hint is null or a reverse of the last move, try again skipping reverse
-    if (hint == null || isReverseOfLastMove(hint, lastMove)) {
-        visited.clear();
-        hint = dfsSkippingReverse(model, visited, 0);
-    }
-
-    // Only store hint if valid
-    if (hint != null) {
-        lastHint = hint;
-    }
-
-    return hint;
-}
-
-String dfsSkippingReverse(KlondikeModel model, Set<String> visited, int depth) {
-    if (depth > 10) return null;
-
-    String hash = model.getStateHash();
-    if (visited.contains(hash)) return null;
-    visited.add(hash);
-
-    // Same as `dfs()` but skip if it reverses last move
-    String[] moves = {
-        tryMoveWasteToFoundation(model),
-        tryMoveWasteToTableau(model),
-        tryMoveTableauToFoundation(model),
-        tryMoveTableauToTableau(model),
-        tryDrawFromStock(model, visited, depth),
-        tryRecycleWaste(model, visited, depth)
-    };
-
-    for (String move : moves) {
-        if (move != null && !isReverseOfLastMove(move, lastMove)) {
-            return move;
+        if ((dirty & 1 << KlondikeModel.WASTE) != 0) {
+            // Waste pile (top card only)
+            wastePanel.removeAll();
+            int top = model.top(KlondikeModel.WASTE);
+            if (top >= 0) wastePanel.add(showCard(top));
+            else wastePanel.add(wasteEmpty);
+            wastePanel.revalidate();
+            wastePanel.repaint();
         }
-    }
 
-    return null;
-}
-String tryMoveWasteToFoundation(KlondikeModel model) {
-    if (!model.waste.isEmpty()) {
-        Card c = model.waste.topCard();
         for (int i = 0; i < 4; i++) {
-            if (model.foundation[i].canPlace(c)) {
-                return "Move waste to foundation " + model.foundation[i].suit;
-            }
+            if ((dirty & 1 << (KlondikeModel.FOUNDATION + i)) == 0) continue;
+            JPanel slot = foundationSlots[i];
+            slot.removeAll();
+            int top = model.top(KlondikeModel.FOUNDATION + i);
+            slot.add(top >= 0 ? showCard(top) : foundationEmpty[i]);
+            slot.revalidate();
+            slot.repaint();
         }
-    }
-    return null;
-}
-String tryMoveWasteToTableau(KlondikeModel model) {
-    if (!model.waste.isEmpty()) {
-        Card c = model.waste.topCard();
+
+        // Tableau piles using JLayeredPane for overlapping cards
         for (int i = 0; i < 7; i++) {
-            if (model.tableau[i].canPlace(c)) {
-                return "Move waste to tableau " + (i + 1);
-            }
-        }
-    }
-    return null;
-}
-String tryMoveTableauToFoundation(KlondikeModel model) {
-    for (int i = 0; i < 7; i++) {
-        TableauPile tab = model.tableau[i];
-        if (!tab.isEmpty()) {
-            Card top = tab.topCard();
-            if (top.faceUp) {
-                for (int j = 0; j < 4; j++) {
-                    if (model.foundation[j].canPlace(top)) {
-                        return "Move tableau " + (i + 1) + " to foundation " + model.foundation[j].suit;
-                    }
+            if ((dirty & 1 << (KlondikeModel.TABLEAU + i)) == 0) continue;
+            JLayeredPane column = columns[i];
+            column.removeAll();
+            int n = model.size(KlondikeModel.TABLEAU + i);
+            if (n == 0) {
+                column.add(columnEmpty[i], Integer.valueOf(0));
+            } else {
+                int yOffset = 0;
+                for (int j = 0; j < n; j++) {
+                    CardButton cb = showCard(model.cardAt(KlondikeModel.TABLEAU + i, j));
+                    cb.setBounds(0, yOffset, 60, 90);
+                    column.add(cb, Integer.valueOf(j));
+                    yOffset += cb.faceUp ? 50 : 10;
                 }
             }
+            column.revalidate();
+            column.repaint();
         }
-    }
-    return null;
-}
-String tryMoveTableauToTableau(KlondikeModel model) {
-    for (int from = 0; from < 7; from++) {
-        List<Card> fromCards = model.tableau[from].getCards();
-        for (int i = 0; i < fromCards.size(); i++) {
-            if (!fromCards.get(i).faceUp) continue;
-
-            for (int to = 0; to < 7; to++) {
-                if (from == to) continue;
-
-                KlondikeModel copy = model.clone();
-                if (copy.moveTableauToTableau(from, to, i)) {
-                    return "Move cards from tableau " + (from + 1) + " to tableau " + (to + 1);
-                }
-            }
+
+        updateHighlight();
+        btnAutoComplete.setEnabled(!model.isWon() && model.canAutoComplete());
+
+        if (model.isWon()) {
+            JOptionPane.showMessageDialog(this, "Congratulations! You won!");
         }
     }
-    return null;
-}
-String tryDrawFromStock(KlondikeModel model, Set<String> visited, int depth) {
-    if (!model.stock.isEmpty()) {
-        KlondikeModel copy = model.clone();
-        copy.drawFromStock();
-        String deeperHint = dfsSkippingReverse(copy, visited, depth + 1);
-        if (deeperHint != null) {
-            return "Draw card from stock, then: " + deeperHint;
-        }
+
+    CardButton showCard(int id) {
+        CardButton cb = cardButtons[id];
+        cb.setFaceUp(model.isFaceUp(id));
+        return cb;
     }
-    return null;
-}
-String tryRecycleWaste(KlondikeModel model, Set<String> visited, int depth) {
-    if (model.stock.canRecycle()) {
-        KlondikeModel copy = model.clone();
-        copy.recycleStock();
-        String deeperHint = dfsSkippingReverse(copy, visited, depth + 1);
-        if (deeperHint != null) {
-            return "Recycle waste to stock, then: " + deeperHint;
+
+    void updateHighlight() {
+        CardButton target = null;
+        Color color = null;
+        if (wasteSelected && model.top(KlondikeModel.WASTE) >= 0) {
+            target = cardButtons[model.top(KlondikeModel.WASTE)];
+            color = Color.YELLOW;
+        } else if (selectedTableauIndex != -1 && selectedCardIndex < model.size(KlondikeModel.TABLEAU + selectedTableauIndex)) {
+            target = cardButtons[model.cardAt(KlondikeModel.TABLEAU + selectedTableauIndex, selectedCardIndex)];
+            color = Color.CYAN;
+        }
+        if (highlighted != null && highlighted != target) highlighted.setBackground(CardButton.NORMAL);
+        if (target != null) target.setBackground(color);
+        highlighted = target;
+    }
+
+    // A card button was clicked; what that means depends on where the card is now
+    void cardClicked(int id) {
+        for (int p = 0; p < KlondikeModel.PILES; p++) {
+            for (int i = 0; i < model.size(p); i++) {
+                if (model.cardAt(p, i) != id) continue;
+                if (p == KlondikeModel.WASTE) wasteClicked();
+                else if (p >= KlondikeModel.FOUNDATION && p < KlondikeModel.STOCK) foundationClicked(p - KlondikeModel.FOUNDATION);
+                else if (p < KlondikeModel.FOUNDATION) tableauCardClicked(p, i, model.isFaceUp(id));
+                return;
+            }
         }
     }
-    return null;
-}
 
+    void wasteClicked() {
+        wasteSelected = !wasteSelected;
+        selectedTableauIndex = -1;
+        selectedCardIndex = -1;
+        refresh();
+    }
 
-String dfs(KlondikeModel model, Set<String> visited, int depth) {
-    if (depth > 10) return null;
-
-    String hash = model.getStateHash();
-    if (visited.contains(hash)) return null;
-    visited.add(hash);
-
-    // Waste to Foundation
-    if (!model.waste.isEmpty()) {
-        Card c = model.waste.topCard();
-        for (int i = 0; i < 4; i++) {
-            if (model.foundation[i].canPlace(c)) {
-                String hint = "Move waste to foundation " + model.foundation[i].suit;
-                if (!isReverseOfLastMove(hint, lastMove)) return hint;
+    void foundationClicked(int idx) {
+        int to = KlondikeModel.FOUNDATION + idx;
+        if (wasteSelected) {
+            if (play(KlondikeModel.move(KlondikeModel.WASTE_TO_FOUNDATION, KlondikeModel.WASTE, to, 1))) {
+                wasteSelected = false;
+                refresh();
+            }
+        } else if (selectedTableauIndex != -1) {
+            if (play(KlondikeModel.move(KlondikeModel.TABLEAU_TO_FOUNDATION, selectedTableauIndex, to, 1))) {
+                selectedTableauIndex = -1;
+                selectedCardIndex = -1;
+                refresh();
             }
         }
     }
 
-    // Waste to Tableau
-    if (!model.waste.isEmpty()) {
-        Card c = model.waste.topCard();
-        for (int i = 0; i < 7; i++) {
-            if (model.tableau[i].canPlace(c)) {
-                String hint = "Move waste to tableau " + (i + 1);
-                if (!isReverseOfLastMove(hint, lastMove)) return hint;
+    void emptyColumnClicked(int vi) {
+        if (wasteSelected) {
+            if (play(KlondikeModel.move(KlondikeModel.WASTE_TO_TABLEAU, KlondikeModel.WASTE, vi, 1))) {
+                wasteSelected = false;
+                refresh();
+            }
+        } else if (selectedTableauIndex != -1) {
+            if (play(tableauMove(vi))) {
+                selectedTableauIndex = -1;
+                selectedCardIndex = -1;
+                refresh();
             }
         }
     }
 
-    // Tableau to Foundation
-    for (int i = 0; i < 7; i++) {
-        TableauPile tab = model.tableau[i];
-        if (!tab.isEmpty()) {
-            Card top = tab.topCard();
-            if (top.faceUp) {
-                for (int j = 0; j < 4; j++) {
-                    if (model.foundation[j].canPlace(top)) {
-                        String hint = "Move tableau " + (i + 1) + " to foundation " + model.foundation[j].suit;
-                        if (!isReverseOfLastMove(hint, lastMove)) return hint;
-                    }
+    void tableauCardClicked(int ui, int ci, boolean faceUp) {
+        if (wasteSelected) {
+            if (play(KlondikeModel.move(KlondikeModel.WASTE_TO_TABLEAU, KlondikeModel.WASTE, ui, 1))) {
+                wasteSelected = false;
+                refresh();
+            }
+        } else if (selectedTableauIndex == -1) {
+            if (faceUp) {
+                selectedTableauIndex = ui;
+                selectedCardIndex = ci;
+            }
+            refresh();
+        } else {
+            if (play(tableauMove(ui))) {
+                selectedTableauIndex = -1;
+                selectedCardIndex = -1;
+                refresh();
+            } else {
+                if (selectedTableauIndex == ui) {
+                    selectedTableauIndex = -1;
+                    selectedCardIndex = -1;
+                    refresh();
                 }
             }
         }
     }
 
-    // Tableau to Tableau
-    for (int from = 0; from < 7; from++) {
-        List<Card> fromCards = model.tableau[from].getCards();
-        for (int i = 0; i < fromCards.size(); i++) {
-            if (!fromCards.get(i).faceUp) continue;
+    // The selected tableau run moved onto column to
+    int tableauMove(int to) {
+        int count = model.size(KlondikeModel.TABLEAU + selectedTableauIndex) - selectedCardIndex;
+        return KlondikeModel.move(KlondikeModel.TABLEAU_TO_TABLEAU, selectedTableauIndex, to, count);
+    }
+
+    private JButton createPlaceholderButton() {
+    JButton empty = new JButton();
+    empty.setPreferredSize(new Dimension(60, 90));
+    empty.setEnabled(false);
+    empty.setBackground(Color.LIGHT_GRAY);
+    empty.setOpaque(true);
+    empty.setBorder(BorderFactory.createLineBorder(Color.GRAY));
+    return empty;
+}
 
-            for (int to = 0; to < 7; to++) {
-                if (from == to) continue;
+// Moves become text only here, at the UI edge
+static String describe(int move) {
+    int from = KlondikeModel.moveFrom(move), to = KlondikeModel.moveTo(move);
+    return switch (KlondikeModel.moveType(move)) {
+        case KlondikeModel.WASTE_TO_FOUNDATION -> "Move waste to foundation " + Card.Suit.values()[to - KlondikeModel.FOUNDATION];
+        case KlondikeModel.WASTE_TO_TABLEAU -> "Move waste to tableau " + (to + 1);
+        case KlondikeModel.TABLEAU_TO_FOUNDATION -> "Move tableau " + (from + 1) + " to foundation " + Card.Suit.values()[to - KlondikeModel.FOUNDATION];
+        case KlondikeModel.TABLEAU_TO_TABLEAU -> "Move cards from tableau " + (from + 1) + " to tableau " + (to + 1);
+        case KlondikeModel.DRAW -> KlondikeModel.moveCount(move) == 1 ? "Draw card from stock"
+                : "Draw " + KlondikeModel.moveCount(move) + " cards from stock";
+        case KlondikeModel.RECYCLE -> "Recycle waste to stock";
+        case KlondikeModel.RECYCLE_DRAW -> "Recycle waste to stock and draw " + KlondikeModel.moveCount(move)
+                + (KlondikeModel.moveCount(move) == 1 ? " card" : " cards");
+        default -> "";
+    };
+}
 
-                KlondikeModel copy = model.clone();
-                if (copy.moveTableauToTableau(from, to, i)) {
-                    String hint = "Move cards from tableau " + (from + 1) + " to tableau " + (to + 1);
-                    if (!isReverseOfLastMove(hint, lastMove)) return hint;
-                }
-            }
+    // Best hint found so far for the current position, or null if none is known yet
+    String getHint() {
+        HintResult h = hintResult;
+        if (h == null || h.version != hintVersion) return null;
+        lastHint = h.text;
+        return lastHint;
+    }
+
+    // Cancel any running search and start one for the current position (EDT only)
+    void startHintSearch() {
+        int version = ++hintVersion;
+        KlondikeModel snapshot = model.clone();
+        int last = lastMove;
+        if (!snapshot.isWon() && snapshot.canAutoComplete()) {
+            hintResult = new HintResult(version, "Use Auto-complete to finish the game.");
+            return;
         }
+        boolean fair = chkNoPeeking.isSelected();
+        hintExecutor.execute(() -> {
+            if (fair) rolloutHint(version, snapshot);
+            else searchHint(version, snapshot, last);
+        });
     }
 
-    // Draw from stock
-    if (!model.stock.isEmpty()) {
-        KlondikeModel copy = model.clone();
-        copy.drawFromStock();
-        String deeperHint = dfs(copy, visited, depth + 1);
-        if (deeperHint != null) {
-            String hint = "Draw card from stock, then: " + deeperHint;
-            if (!isReverseOfLastMove(hint, lastMove)) return hint;
+    // Runs on the hint thread: ranks moves by Monte Carlo rollouts over random deals of
+    // the face-down cards, so the hint never depends on cards the player cannot see
+    void rolloutHint(int version, KlondikeModel snapshot) {
+        if (version != hintVersion) return;
+        if (snapshot.isWon()) {
+            hintResult = new HintResult(version, "The game is won.");
+            return;
         }
-    }
-
-    // Recycle waste
-    if (model.stock.canRecycle()) {
-        KlondikeModel copy = model.clone();
-        copy.recycleStock();
-        String deeperHint = dfs(copy, visited, depth + 1);
-        if (deeperHint != null) {
-            String hint = "Recycle waste to stock, then: " + deeperHint;
-            if (!isReverseOfLastMove(hint, lastMove)) return hint;
+        rollouts.cancelled = () -> hintVersion != version;
+        List<KlondikeRollouts.Ranking> ranked = rollouts.rank(snapshot);
+        if (version != hintVersion) return;
+        if (ranked.isEmpty()) {
+            hintResult = new HintResult(version, "No moves found.");
+            return;
+        }
+        KlondikeRollouts.Ranking best = ranked.get(0);
+        hintResult = new HintResult(version, String.format("%s (won %.0f%% of %d sampled games, %.0f-%.0f%%)",
+                describe(best.move), 100 * best.winRate(), best.plays, 100 * best.lower(), 100 * best.upper()));
+    }
+
+    // Runs on the hint thread: the time-boxed hint search first, publishing each better
+    // hint, then a small solve on the same thread that can replace it with the first move
+    // of a winning line
+    void searchHint(int version, KlondikeModel snapshot, int last) {
+        if (version != hintVersion) return;
+        if (snapshot.isWon()) {
+            hintResult = new HintResult(version, "The game is won.");
+            return;
+        }
+        hints.cancelled = () -> hintVersion != version;
+        String quick = hints.find(snapshot, last, hint -> hintResult = new HintResult(version, hint));
+        if (version != hintVersion) return;
+        hintResult = new HintResult(version, quick == null ? "No moves found." : quick);
+
+        hintSolver.tableMegabytes = HINT_SOLVE_TABLE_MB;
+        hintSolver.cancelled = () -> hintVersion != version;
+        KlondikeSolver.Result r = hintSolver.solve(snapshot);
+        if (version != hintVersion) return;
+        if (r.status == KlondikeSolver.Status.WON) {
+            hintResult = new HintResult(version, describe(r.moves[0]) + " (winnable in " + r.moves.length + " moves)");
+        } else if (r.status == KlondikeSolver.Status.UNWINNABLE) {
+            hintResult = new HintResult(version, (quick == null ? "No moves found." : quick) + " (this deal can no longer be won)");
         }
     }
-
-    return null;
-}
 }
\ No newline at end of file